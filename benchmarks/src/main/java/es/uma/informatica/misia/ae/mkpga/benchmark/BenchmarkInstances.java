@@ -0,0 +1,59 @@
+package es.uma.informatica.misia.ae.mkpga.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+import es.uma.informatica.misia.ae.mkpga.problem.Problem;
+import es.uma.informatica.misia.ae.mkpga.util.MultidimensionalKnapsackProblemGenerator;
+import es.uma.informatica.misia.ae.mkpga.util.MultidimensionalKnapsackProblemLoader;
+
+/**
+ * Problem instances used by the benchmarks, named by a benchmark parameter:
+ * 
+ * - mknap1-<index>: instance of the OR-Library mknap1.txt file, read from the
+ * path in the mkpga.mknap1 system property (default data/mknap1.txt).
+ * - random-<items>x<constraints>: generated instance with tightness 0.5.
+ */
+public final class BenchmarkInstances {
+	private static final String MKNAP1_PREFIX = "mknap1-";
+	private static final String RANDOM_PREFIX = "random-";
+	private static final double TIGHTNESS = 0.5;
+	private static final long GENERATOR_SEED = 1;
+
+	private BenchmarkInstances() {
+	}
+
+	public static MultidimensionalKnapsackProblem load(String instance) {
+		if (instance.startsWith(MKNAP1_PREFIX)) {
+			int index = Integer.parseInt(instance.substring(MKNAP1_PREFIX.length()));
+			String path = System.getProperty("mkpga.mknap1", "data/mknap1.txt");
+			try {
+				List<MultidimensionalKnapsackProblem> problems = MultidimensionalKnapsackProblemLoader
+						.loadInstances(path);
+				return problems.get(index);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot load " + path, e);
+			}
+		}
+		if (instance.startsWith(RANDOM_PREFIX)) {
+			String[] size = instance.substring(RANDOM_PREFIX.length()).split("x");
+			return MultidimensionalKnapsackProblemGenerator.generate(Integer.parseInt(size[0]),
+					Integer.parseInt(size[1]), TIGHTNESS, GENERATOR_SEED);
+		}
+		throw new IllegalArgumentException("Unknown benchmark instance: " + instance);
+	}
+
+	// Evaluated random individuals
+	public static Individual[] population(Problem problem, int size, Random rnd) {
+		Individual[] population = new Individual[size];
+		for (int i = 0; i < size; i++) {
+			population[i] = problem.generateRandomIndividual(rnd);
+			population[i].setFitness(problem.evaluate(population[i]));
+		}
+		return population;
+	}
+}
@@ -0,0 +1,52 @@
+package es.uma.informatica.misia.ae.mkpga.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * Cost of one full evaluation of MultidimensionalKnapsackProblem, cycling
+ * through a fixed set of random individuals.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+	private static final int INDIVIDUALS = 64;
+
+	@Param({ "mknap1-0", "mknap1-1", "mknap1-2", "mknap1-3", "mknap1-4", "mknap1-5", "mknap1-6", "random-500x30",
+			"random-10000x30" })
+	public String instance;
+
+	private MultidimensionalKnapsackProblem problem;
+	private Individual[] individuals;
+	private int next;
+
+	@Setup
+	public void setup() {
+		problem = BenchmarkInstances.load(instance);
+		individuals = BenchmarkInstances.population(problem, INDIVIDUALS, new Random(42));
+	}
+
+	@Benchmark
+	public double evaluate() {
+		return problem.evaluate(individuals[next++ & (INDIVIDUALS - 1)]);
+	}
+}
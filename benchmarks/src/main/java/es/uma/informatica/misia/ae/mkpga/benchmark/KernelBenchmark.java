@@ -0,0 +1,72 @@
+package es.uma.informatica.misia.ae.mkpga.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.LoadKernel;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * Scalar against vector load kernels on generated instances with a growing
+ * number of constraints: a full evaluation, and the add and capacity check of
+ * a single item as used by the incremental evaluation and the repair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class KernelBenchmark {
+	private static final int INDIVIDUALS = 64;
+	private static final int ITEMS = 500;
+
+	@Param({ LoadKernel.SCALAR, LoadKernel.VECTOR })
+	public String kernel;
+
+	@Param({ "5", "10", "30", "50", "100" })
+	public int constraints;
+
+	private MultidimensionalKnapsackProblem problem;
+	private Individual[] individuals;
+	private long[] loads;
+	private int next;
+
+	@Setup
+	public void setup() {
+		System.setProperty(LoadKernel.KERNEL_PROPERTY, kernel);
+		problem = BenchmarkInstances.load("random-" + ITEMS + "x" + constraints);
+		if (!problem.getKernel().name().equals(kernel)) {
+			throw new IllegalStateException("Requested " + kernel + " kernel, got " + problem.getKernel().name());
+		}
+		individuals = BenchmarkInstances.population(problem, INDIVIDUALS, new Random(42));
+		loads = new long[problem.getLoadLength()];
+	}
+
+	@Benchmark
+	public double evaluate() {
+		return problem.evaluate(individuals[next++ & (INDIVIDUALS - 1)]);
+	}
+
+	@Benchmark
+	public boolean addAndCheck() {
+		int itemIndex = next++ % ITEMS;
+		boolean fits = problem.fits(itemIndex, loads);
+		problem.addWeights(itemIndex, loads);
+		problem.subtractWeights(itemIndex, loads);
+		return fits;
+	}
+}
@@ -0,0 +1,114 @@
+package es.uma.informatica.misia.ae.mkpga.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.SinglePointCrossover;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.BitFlipMutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.GeometricBitFlipMutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.replacement.ElitistReplacement;
+import es.uma.informatica.misia.ae.mkpga.algorithm.selection.BinaryTournament;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * Cost of a single application of each operator of the steady-state loop on a
+ * population of evaluated random individuals.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperatorBenchmark {
+
+	@Param({ "mknap1-6", "random-500x30", "random-10000x30" })
+	public String instance;
+
+	@Param({ "10", "100" })
+	public int populationSize;
+
+	@Param({ "0.01" })
+	public double mutationProbability;
+
+	private Random rnd;
+	private List<Individual> population;
+	private Individual parent1;
+	private Individual parent2;
+	private Individual child;
+
+	private SinglePointCrossover crossover;
+	private BitFlipMutation mutation;
+	private GeometricBitFlipMutation geometricMutation;
+	private BinaryTournament selection;
+	private ElitistReplacement replacement;
+
+	@Setup
+	public void setup() {
+		rnd = new Random(42);
+		MultidimensionalKnapsackProblem problem = BenchmarkInstances.load(instance);
+		population = new ArrayList<>(Arrays.asList(BenchmarkInstances.population(problem, populationSize, rnd)));
+		parent1 = population.get(0);
+		parent2 = population.get(1);
+		child = problem.generateRandomIndividual(rnd);
+
+		// A crossover probability of 0 always recombines, see SinglePointCrossover
+		crossover = new SinglePointCrossover(rnd, 0.0);
+		mutation = new BitFlipMutation(rnd, mutationProbability);
+		geometricMutation = new GeometricBitFlipMutation(rnd, mutationProbability);
+		selection = new BinaryTournament(rnd);
+		replacement = new ElitistReplacement();
+	}
+
+	@Benchmark
+	public Individual crossover() {
+		return crossover.apply(parent1, parent2);
+	}
+
+	@Benchmark
+	public Individual mutation() {
+		return mutation.apply(parent1);
+	}
+
+	@Benchmark
+	public Individual geometricMutation() {
+		return geometricMutation.apply(parent1);
+	}
+
+	@Benchmark
+	public Individual selection() {
+		return selection.selectParent(population);
+	}
+
+	// In-place insertion, the individual left out is reused as the next child
+	@Benchmark
+	public Individual replacement() {
+		child.setFitness(rnd.nextDouble());
+		child = replacement.replace(population, child);
+		return child;
+	}
+
+	// Copying replacement, as used before the in-place operations
+	@Benchmark
+	public List<Individual> replacementCopy() {
+		child.setFitness(rnd.nextDouble());
+		return replacement.replacement(population, Collections.singletonList(child));
+	}
+}
@@ -0,0 +1,70 @@
+package es.uma.informatica.misia.ae.mkpga.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.Crossover;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.Mutation;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * Complete runs of EvolutionaryAlgorithm with a fixed evaluation budget, the
+ * same configuration as the experiments (population of 10).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunBenchmark {
+
+	@Param({ "mknap1-0", "mknap1-1", "mknap1-2", "mknap1-3", "mknap1-4", "mknap1-5", "mknap1-6", "random-500x30",
+			"random-5000x30" })
+	public String instance;
+
+	@Param({ "10000" })
+	public int functionEvaluations;
+
+	@Param({ "10" })
+	public int populationSize;
+
+	@Param({ "0", "1" })
+	public int zeroAllocation;
+
+	private MultidimensionalKnapsackProblem problem;
+	private Map<String, Double> parameters;
+	private long seed;
+
+	@Setup
+	public void setup() {
+		problem = BenchmarkInstances.load(instance);
+		parameters = new HashMap<>();
+		parameters.put(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM, (double) populationSize);
+		parameters.put(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM, (double) functionEvaluations);
+		parameters.put(Crossover.CROSSOVER_PROBABILITY_PARAM, 0.5);
+		parameters.put(Mutation.MUTATION_PROBABILITY_PARAMETER, 0.05);
+		parameters.put(EvolutionaryAlgorithm.ZERO_ALLOCATION_PARAM, (double) zeroAllocation);
+	}
+
+	@Benchmark
+	public Individual run() {
+		parameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) seed++);
+		return new EvolutionaryAlgorithm(parameters, problem).run();
+	}
+}
@@ -0,0 +1,18 @@
+#!/bin/bash
+
+# Usage: ./scripts/benchmark.sh [<JMH options>] [<benchmark regex>]
+# Example: ./scripts/benchmark.sh -p instance=random-500x30 OperatorBenchmark
+
+# Step 1: Build and install the project, then build the benchmarks
+echo "Building the project and the benchmarks with Maven..."
+mvn clean install -q -DskipTests && mvn -f benchmarks/pom.xml clean package -q
+if [ $? -ne 0 ]; then
+	echo "Build failed. Exiting."
+	exit 1
+fi
+
+# Step 2: Run JMH with allocation profiling to track bytes per operation
+RESULTS_DIR="$(pwd)/results/benchmarks"
+mkdir -p "$RESULTS_DIR"
+java --add-modules jdk.incubator.vector -Dmkpga.mknap1="$(pwd)/data/mknap1.txt" -jar benchmarks/target/benchmarks.jar \
+	-prof gc -rf json -rff "$RESULTS_DIR/$(date +'%Y%m%d_%H%M%S').json" "$@"
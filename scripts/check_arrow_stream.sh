@@ -0,0 +1,97 @@
+#!/bin/bash
+
+# Usage: ./scripts/check_arrow_stream.sh
+# Writes a small table with ArrowStreamWriter (one column of every type, two
+# rows, one record batch) and compares the stream byte for byte with the
+# expected one below. When pyarrow is installed, the stream is also read back
+# with pyarrow.ipc.open_stream and its values are compared.
+
+cd "$(dirname "$0")/.." || exit 1
+mvn -B -q compile || exit 1
+
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+cat > "$WORK_DIR/ArrowStreamCheck.java" <<'JAVA'
+import es.uma.informatica.misia.ae.mkpga.util.ArrowStreamWriter;
+import es.uma.informatica.misia.ae.mkpga.util.ArrowStreamWriter.ColumnType;
+
+public class ArrowStreamCheck {
+	public static void main(String[] args) throws Exception {
+		String[] names = { "id", "evaluations", "fitness", "items", "trace" };
+		ColumnType[] types = { ColumnType.INT32, ColumnType.INT64, ColumnType.FLOAT64, ColumnType.INT32_LIST,
+				ColumnType.FLOAT64_LIST };
+		try (ArrowStreamWriter writer = new ArrowStreamWriter(args[0], names, types)) {
+			writer.appendInt(0, 1);
+			writer.appendLong(1, 10_000_000_000L);
+			writer.appendDouble(2, 0.5);
+			writer.appendInt(3, 1);
+			writer.appendInt(3, 2);
+			writer.appendInt(3, 3);
+			writer.appendDouble(4, 1.5);
+			writer.endRow();
+			writer.appendInt(0, -2);
+			writer.appendLong(1, 3);
+			writer.appendDouble(2, -1.25);
+			writer.appendDouble(4, 2);
+			writer.appendDouble(4, 4);
+			writer.endRow();
+		}
+	}
+}
+JAVA
+
+java -cp target/classes "$WORK_DIR/ArrowStreamCheck.java" "$WORK_DIR/check.arrows" || exit 1
+
+EXPECTED=$(tr -d '\n' <<'HEX'
+ffffffff58020000180000000e001700140016001000080000000000000000001400000000000000000000000000000014000000040001000c000a0008000400
+000000000c000000080000000000000005000000280000006c000000b8000000fc0000008801000012001200040010001100080000000c000000000014000000
+100000001c0000002400000000020000020000006964000008000900040008000800000020000000010000000000000012001200040010001100080000000c00
+000000001400000010000000240000002c000000000200000b0000006576616c756174696f6e7300080009000400080008000000400000000100000000000000
+12001200040010001100080000000c00000000001400000010000000200000002400000000030000070000006669746e65737300060006000400000008000000
+020000000000000012001200040010001100080000000c000000000014000000100000001c0000001c000000000c0000050000006974656d7300040004000000
+06000000010000001800000012001200040010001100080000000c00000000001400000010000000200000002800000000020000040000006974656d00000800
+09000400080000000a00000020000000010000000000000012001200040010001100080000000c000000000014000000100000001c0000001c000000000c0000
+0500000074726163650004000400000006000000010000001800000012001200040010001100080000000c000000000014000000100000001c00000020000000
+00030000040000006974656d0000060006000400060000000200000000000000ffffffffb8010000180000000e00170014001600100008000000000000000000
+1400000000000000700000000000000018000000040003000e001800080010001400000000000000100000000000000002000000000000000c00000080000000
+00000000070000000200000000000000000000000000000002000000000000000000000000000000020000000000000000000000000000000200000000000000
+0000000000000000030000000000000000000000000000000200000000000000000000000000000003000000000000000000000000000000000000000e000000
+00000000000000000000000000000000000000000000000008000000000000000800000000000000000000000000000008000000000000001000000000000000
+18000000000000000000000000000000180000000000000010000000000000002800000000000000000000000000000028000000000000000c00000000000000
+3800000000000000000000000000000038000000000000000c000000000000004800000000000000000000000000000048000000000000000c00000000000000
+580000000000000000000000000000005800000000000000180000000000000001000000feffffff00e40b54020000000300000000000000000000000000e03f
+000000000000f4bf000000000300000003000000000000000100000002000000030000000000000000000000010000000300000000000000000000000000f83f
+00000000000000400000000000001040ffffffff00000000
+HEX
+)
+ACTUAL=$(od -An -tx1 -v "$WORK_DIR/check.arrows" | tr -d ' \n')
+if [ "$ACTUAL" != "$EXPECTED" ]; then
+	echo "Arrow stream differs from the expected bytes:"
+	echo "$ACTUAL" | fold -w 128
+	exit 1
+fi
+echo "Arrow stream matches the expected bytes."
+
+if python3 -c "import pyarrow" 2>/dev/null; then
+	python3 - "$WORK_DIR/check.arrows" <<'PYTHON' || exit 1
+import sys
+import pyarrow as pa
+import pyarrow.ipc as ipc
+
+table = ipc.open_stream(sys.argv[1]).read_all()
+# Columns and list items are not nullable
+items = [pa.list_(pa.field("item", value_type, nullable=False)) for value_type in (pa.int32(), pa.float64())]
+assert table.schema.types == [pa.int32(), pa.int64(), pa.float64()] + items, table.schema
+assert table.to_pydict() == {
+    "id": [1, -2],
+    "evaluations": [10000000000, 3],
+    "fitness": [0.5, -1.25],
+    "items": [[1, 2, 3], []],
+    "trace": [[1.5], [2.0, 4.0]],
+}, table.to_pydict()
+print("pyarrow reads the expected table.")
+PYTHON
+else
+	echo "pyarrow is not installed, the read back was skipped."
+fi
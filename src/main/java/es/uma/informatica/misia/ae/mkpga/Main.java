@@ -1,24 +1,66 @@
 package es.uma.informatica.misia.ae.mkpga;
 
 import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+import es.uma.informatica.misia.ae.mkpga.algorithm.IslandModel;
+import es.uma.informatica.misia.ae.mkpga.algorithm.PortfolioSolver;
 import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.Crossover;
 import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.Mutation;
-import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+import es.uma.informatica.misia.ae.mkpga.experiment.BatchExperimentRunner;
+import es.uma.informatica.misia.ae.mkpga.service.SolverService;
 import es.uma.informatica.misia.ae.mkpga.util.MultidimensionalKnapsackProblemLoader;
 import es.uma.informatica.misia.ae.mkpga.problem.Problem;
+import es.uma.informatica.misia.ae.mkpga.util.LiveMetrics;
 import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+import es.uma.informatica.misia.ae.mkpga.util.TraceWriter;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class Main {
 	public static void main(String args[]) {
+		try {
+			LiveMetrics.startFromEnvironment();
+		} catch (IOException e) {
+			System.err.println("Error starting the live metrics endpoint: " + e.getMessage());
+			return;
+		}
+		try {
+			run(args);
+		} finally {
+			LiveMetrics.stop();
+		}
+	}
+
+	private static void run(String args[]) {
+		if (args.length > 0 && args[0].equals("batch")) {
+			runBatch(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("convert")) {
+			runConvert(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("portfolio")) {
+			runPortfolio(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("serve")) {
+			runServe(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
 		if (args.length < 4) {
 			System.err.println("Invalid number of arguments");
 			System.err.println(
-					"Arguments: <population size> <function evaluations> <bitflip probability> <problem index> [<random seed>]");
+					"Arguments: <population size> <function evaluations> <crossover probability> <mutation probability> <problem index> [<random seed>] [<name>=<value> ...]");
+			System.err.println("       batch [<grid file>] [<name>=<value> ...]");
+			System.err.println("       convert <text file> <snapshot file>");
+			System.err.println(
+					"       serve [port=<port>] [threads=<n>] [queue=<n>] [warmup=<evaluations>] [maxPopulation=<n>] [maxEvaluations=<n>] [maxTimeLimit=<ms>]");
+			System.err.println(
+					"       portfolio <population size> <function evaluations> <problem index> [<random seed>] [crossoverProbabilities=<p>,...] [mutationProbabilities=<p>,...] [<name>=<value> ...]");
 			return;
 		}
 
@@ -35,24 +77,185 @@ public class Main {
 		}
 
 		int problem_index = Integer.parseInt(args[4]);
-		List<MultidimensionalKnapsackProblem> problems;
+		Problem problem;
 		try {
-			problems = MultidimensionalKnapsackProblemLoader.loadInstances(problemFilePath);
+			problem = MultidimensionalKnapsackProblemLoader.loadInstance(problemFilePath, problem_index);
 		} catch (IOException e) {
 			System.err.println("Error loading problem instances: " + e.getMessage());
 			return;
 		}
 
-		Problem problem = problems.get(problem_index);
-
 		Map<String, Double> parameters = readEAParameters(args);
-		EvolutionaryAlgorithm evolutionaryAlgorithm = new EvolutionaryAlgorithm(parameters, problem);
+		String checkpointFilePath = System.getenv("CHECKPOINT_FILE_PATH");
+		MetricsCollector metricsCollector;
+		Runnable algorithm;
+		try {
+			if (parameters.getOrDefault(IslandModel.ISLANDS_PARAM, 1.0) > 1) {
+				IslandModel islandModel = new IslandModel(parameters, problem);
+				metricsCollector = islandModel.getMetricsCollector();
+				algorithm = islandModel::run;
+				if (checkpointFilePath != null) {
+					System.err.println("CHECKPOINT_FILE_PATH is ignored by the island model");
+				}
+			} else {
+				EvolutionaryAlgorithm evolutionaryAlgorithm = new EvolutionaryAlgorithm(parameters, problem);
+				if (checkpointFilePath != null) {
+					evolutionaryAlgorithm.setCheckpointFile(checkpointFilePath);
+				}
+				metricsCollector = evolutionaryAlgorithm.getMetricsCollector();
+				algorithm = evolutionaryAlgorithm::run;
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid parameters: " + e.getMessage());
+			return;
+		}
 
-		evolutionaryAlgorithm.run();
+		// Optionally stream the convergence trace instead of keeping it in the results file
+		String traceFilePath = System.getenv("TRACE_FILE_PATH");
+		if (traceFilePath == null) {
+			algorithm.run();
+		} else {
+			try (TraceWriter traceWriter = new TraceWriter(traceFilePath)) {
+				metricsCollector.setTraceWriter(traceWriter);
+				algorithm.run();
+			} catch (IOException e) {
+				System.err.println("Error writing convergence trace: " + e.getMessage());
+				return;
+			}
+		}
 
-		MetricsCollector metricsCollector = evolutionaryAlgorithm.getMetricsCollector();
 		metricsCollector.writeSummaryReport();
-		metricsCollector.writeMetricsToJson(resultsFilePath);
+		try {
+			metricsCollector.writeMetricsToJson(resultsFilePath);
+		} catch (IOException e) {
+			System.err.println("Error writing results: " + e.getMessage());
+		}
+	}
+
+	// Run a grid of experiments in this JVM, see BatchExperimentRunner
+	private static void runBatch(String[] args) {
+		try {
+			BatchExperimentRunner.main(args);
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Error running batch experiments: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Convert an OR-Library text file into a binary snapshot, see MultidimensionalKnapsackProblemSnapshot
+	private static void runConvert(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Arguments: convert <text file> <snapshot file>");
+			return;
+		}
+		try {
+			MultidimensionalKnapsackProblemLoader.convertToSnapshot(args[0], args[1]);
+		} catch (IOException e) {
+			System.err.println("Error converting problem instances: " + e.getMessage());
+		}
+	}
+
+	// Keep the instances resident and solve jobs received over HTTP, see SolverService
+	private static void runServe(String[] args) {
+		String problemFilePath = System.getenv("MKP_FILE_PATH");
+		if (problemFilePath == null) {
+			System.err.println("MKP_FILE_PATH environment variable not set");
+			return;
+		}
+		Map<String, String> options = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				System.err.println(
+						"Arguments: serve [port=<port>] [threads=<n>] [queue=<n>] [warmup=<evaluations>] [maxPopulation=<n>] [maxEvaluations=<n>] [maxTimeLimit=<ms>]");
+				return;
+			}
+			options.put(arg.substring(0, separator), arg.substring(separator + 1));
+		}
+
+		try {
+			SolverService service = new SolverService(MultidimensionalKnapsackProblemLoader.loadInstances(problemFilePath),
+					options);
+			long warmupStart = System.currentTimeMillis();
+			service.warmUp(Integer.parseInt(options.getOrDefault(SolverService.WARMUP,
+					String.valueOf(SolverService.DEFAULT_WARMUP_EVALUATIONS))));
+			service.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+			System.out.printf("Solver listening on http://127.0.0.1:%d/solve (warm-up %d ms)%n", service.getPort(),
+					System.currentTimeMillis() - warmupStart);
+			service.awaitStop();
+		} catch (IOException e) {
+			System.err.println("Error starting the solver service: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Race several operator configurations on one instance, see PortfolioSolver
+	private static void runPortfolio(String[] args) {
+		if (args.length < 3) {
+			System.err.println(
+					"Arguments: portfolio <population size> <function evaluations> <problem index> [<random seed>] [crossoverProbabilities=<p>,...] [mutationProbabilities=<p>,...] [<name>=<value> ...]");
+			return;
+		}
+		String problemFilePath = System.getenv("MKP_FILE_PATH");
+		String resultsFilePath = System.getenv("RESULTS_FILE_PATH");
+		if (problemFilePath == null || resultsFilePath == null) {
+			System.err.println("MKP_FILE_PATH and RESULTS_FILE_PATH environment variables must be set");
+			return;
+		}
+
+		Problem problem;
+		try {
+			problem = MultidimensionalKnapsackProblemLoader.loadInstance(problemFilePath, Integer.parseInt(args[2]));
+		} catch (IOException e) {
+			System.err.println("Error loading problem instances: " + e.getMessage());
+			return;
+		}
+
+		Map<String, Double> parameters = new HashMap<>();
+		parameters.put(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM, Double.parseDouble(args[0]));
+		parameters.put(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM, Double.parseDouble(args[1]));
+		double[] crossoverProbabilities = PortfolioSolver.DEFAULT_CROSSOVER_PROBABILITIES;
+		double[] mutationProbabilities = PortfolioSolver.DEFAULT_MUTATION_PROBABILITIES;
+		long randomSeed = System.currentTimeMillis();
+		for (int i = 3; i < args.length; i++) {
+			int separator = args[i].indexOf('=');
+			if (separator < 0) {
+				randomSeed = Long.parseLong(args[i]);
+				continue;
+			}
+			String name = args[i].substring(0, separator);
+			String value = args[i].substring(separator + 1);
+			if (name.equals("crossoverProbabilities")) {
+				crossoverProbabilities = parseList(value);
+			} else if (name.equals("mutationProbabilities")) {
+				mutationProbabilities = parseList(value);
+			} else {
+				parameters.put(name, Double.parseDouble(value));
+			}
+		}
+		parameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) randomSeed);
+
+		PortfolioSolver portfolioSolver;
+		try {
+			portfolioSolver = new PortfolioSolver(parameters, crossoverProbabilities, mutationProbabilities, problem);
+		} catch (IllegalArgumentException e) {
+			System.err.println("Invalid portfolio: " + e.getMessage());
+			return;
+		}
+		portfolioSolver.run();
+		portfolioSolver.getMetricsCollector().writeSummaryReport();
+		try {
+			portfolioSolver.getMetricsCollector().writeMetricsToJson(resultsFilePath);
+		} catch (IOException e) {
+			System.err.println("Error writing results: " + e.getMessage());
+		}
+	}
+
+	private static double[] parseList(String value) {
+		return Arrays.stream(value.trim().split("\\s*,\\s*")).mapToDouble(Double::parseDouble).toArray();
 	}
 
 	private static Map<String, Double> readEAParameters(String[] args) {
@@ -62,9 +265,15 @@ public class Main {
 		parameters.put(Crossover.CROSSOVER_PROBABILITY_PARAM, Double.parseDouble(args[2]));
 		parameters.put(Mutation.MUTATION_PROBABILITY_PARAMETER, Double.parseDouble(args[3]));
 
+		// Optional random seed followed by optional <name>=<value> algorithm parameters
 		long randomSeed = System.currentTimeMillis();
-		if (args.length > 5) {
-			randomSeed = Long.parseLong(args[5]);
+		for (int i = 5; i < args.length; i++) {
+			int separator = args[i].indexOf('=');
+			if (separator >= 0) {
+				parameters.put(args[i].substring(0, separator), Double.parseDouble(args[i].substring(separator + 1)));
+			} else {
+				randomSeed = Long.parseLong(args[i]);
+			}
 		}
 		parameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) randomSeed);
 		return parameters;
@@ -0,0 +1,58 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Population shared by the workers of the asynchronous mode. Slots are
+ * updated with compare-and-set, so readers never block and no lock is held
+ * while a child is inserted.
+ *
+ * A child replaces the worse of two random slots if it is strictly better
+ * than it, a lock-free approximation of replacing the worst individual. A
+ * slot only ever receives a better individual, so the best fitness of the
+ * population never decreases. Selection reads it through the read-only list
+ * view.
+ */
+public class ConcurrentPopulation extends AbstractList<Individual> {
+	private final AtomicReferenceArray<Individual> slots;
+
+	public ConcurrentPopulation(List<Individual> population) {
+		slots = new AtomicReferenceArray<>(population.toArray(new Individual[0]));
+	}
+
+	@Override
+	public Individual get(int index) {
+		return slots.get(index);
+	}
+
+	@Override
+	public int size() {
+		return slots.length();
+	}
+
+	/**
+	 * Inserts child if it beats the worse of two random slots, retrying when
+	 * another worker changes the slot first. Returns whether it was inserted.
+	 */
+	public boolean offer(Individual child, Random rnd) {
+		int first = rnd.nextInt(slots.length());
+		int second = rnd.nextInt(slots.length());
+		while (true) {
+			Individual firstIndividual = slots.get(first);
+			Individual secondIndividual = slots.get(second);
+			int victim = firstIndividual.getFitness() <= secondIndividual.getFitness() ? first : second;
+			Individual current = victim == first ? firstIndividual : secondIndividual;
+			if (child.getFitness() <= current.getFitness()) {
+				return false;
+			}
+			if (slots.compareAndSet(victim, current, child)) {
+				return true;
+			}
+		}
+	}
+}
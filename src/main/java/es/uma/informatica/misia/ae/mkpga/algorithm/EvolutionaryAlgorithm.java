@@ -1,25 +1,56 @@
 package es.uma.informatica.misia.ae.mkpga.algorithm;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
 import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.Crossover;
 import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.SinglePointCrossover;
+import es.uma.informatica.misia.ae.mkpga.algorithm.migration.Migration;
 import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.BitFlipMutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.GeometricBitFlipMutation;
 import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.Mutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.repair.GreedyRepair;
+import es.uma.informatica.misia.ae.mkpga.algorithm.repair.Repair;
 import es.uma.informatica.misia.ae.mkpga.algorithm.replacement.ElitistReplacement;
 import es.uma.informatica.misia.ae.mkpga.algorithm.replacement.Replacement;
 import es.uma.informatica.misia.ae.mkpga.algorithm.selection.BinaryTournament;
 import es.uma.informatica.misia.ae.mkpga.algorithm.selection.Selection;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.AndCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.DeadlineCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.EvaluationRateCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.GapCriterion;
 import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.MaxFunctionEvaluationsCriterion;
 import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.OptimalSolutionCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.OrCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.StagnationCriterion;
 import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.StoppingCriterion;
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
+import es.uma.informatica.misia.ae.mkpga.problem.EvaluationState;
 import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
 import es.uma.informatica.misia.ae.mkpga.problem.Problem;
+import es.uma.informatica.misia.ae.mkpga.util.CheckpointCodec;
+import es.uma.informatica.misia.ae.mkpga.util.CheckpointWriter;
+import es.uma.informatica.misia.ae.mkpga.util.LiveMetrics;
 import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+import es.uma.informatica.misia.ae.mkpga.util.PhaseProfiler;
+import es.uma.informatica.misia.ae.mkpga.util.PhaseProfiler.Phase;
+import es.uma.informatica.misia.ae.mkpga.util.RestorableRandom;
 
 /**
  * The EvolutionaryAlgorithm class implements a simple evolutionary algorithm
@@ -41,30 +72,128 @@ import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
  * new individuals.
  * - StoppingCriterion: The condition that determines when the algorithm should
  * stop.
+ *
+ * The run stops at the evaluation budget, or without one when the optimum is
+ * found or after STOPPING_LIMIT_TIME ms. The stagnation, target gap, time limit
+ * and minimum evaluation rate parameters add criteria that stop it earlier,
+ * when any of them is satisfied or, with the all criteria parameter, when all
+ * of them are.
+ *
+ * By default the algorithm is steady-state: one child is produced, evaluated
+ * and inserted per iteration. When the offspring size parameter is set, it runs
+ * as a generational (mu + lambda) algorithm instead: each generation breeds and
+ * evaluates lambda children in parallel and then applies a single replacement.
+ * Every offspring slot has its own breeder with a random generator split from
+ * the seed, so the result does not depend on the number of threads.
+ *
+ * The random generator is chosen with the {@link RestorableRandom#RNG_PARAM}
+ * parameter, and with the geometric mutation parameter the mutation skips to
+ * the next flipped gene instead of drawing a number per gene. The breeders of
+ * the parallel modes use streams split from it.
+ *
+ * With the zero allocation parameter, the steady-state loop recycles the
+ * individuals evicted by the replacement as buffers for the next children, and
+ * the operators write into them instead of returning new individuals.
+ *
+ * With a fitness cache size, the steady-state loop looks children up in a
+ * {@link FitnessCache} before evaluating them. Cache hits count as function
+ * evaluations unless the corresponding parameter is set to 0.
+ *
+ * With the asynchronous parameter, the steady-state loop runs on several
+ * worker threads at once without any barrier. Workers breed from and insert
+ * into a {@link ConcurrentPopulation}, the best solution is updated with
+ * compare-and-set and the counters are striped, so the evaluation budget is
+ * exceeded by at most one child per worker. This mode is not reproducible,
+ * and it does not use the fitness cache, the individual pool or migration.
+ *
+ * With the repair parameter, every new individual, including the initial
+ * population, is made feasible by a {@link Repair} operator before it is
+ * evaluated.
+ *
+ * With the profile parameter, the time spent in each phase of the loop is
+ * recorded by a {@link PhaseProfiler} and reported with the metrics.
+ *
+ * When {@link LiveMetrics} are started, the run registers its metrics while it
+ * is in progress and publishes the diversity of its population every
+ * LIVE_SNAPSHOT_INTERVAL iterations.
+ *
+ * With the diversity parameter, the population is tracked by a
+ * {@link PopulationDiversity} updated on every insertion and eviction, and its
+ * mean Hamming distance and entropy are published every iteration and
+ * recorded in the trace. With the reject duplicates parameter, children whose
+ * chromosome is already in the population are also dropped before they are
+ * evaluated, and the run stops after as many consecutive rejections as the
+ * evaluation budget. The asynchronous mode does not track the diversity.
+ *
+ * With a checkpoint file, the steady-state loop saves its state every
+ * checkpoint interval evaluations through a {@link CheckpointWriter}, and a
+ * run started while the file exists resumes from it instead of generating a
+ * new population. The resumed run continues exactly as the interrupted one,
+ * and the file is deleted when the run completes. The phase profile only
+ * covers the time after the last resume.
  */
 public class EvolutionaryAlgorithm {
 	public static final String MAX_FUNCTION_EVALUATIONS_PARAM = "maxFunctionEvaluations";
 	public static final String RANDOM_SEED_PARAM = "randomSeed";
 	public static final String POPULATION_SIZE_PARAM = "populationSize";
+	public static final String INCREMENTAL_EVALUATION_PARAM = "incrementalEvaluation";
+	public static final String OFFSPRING_SIZE_PARAM = "offspringSize";
+	public static final String THREADS_PARAM = "threads";
+	public static final String ZERO_ALLOCATION_PARAM = "zeroAllocation";
+	public static final String ASYNCHRONOUS_PARAM = "asynchronous";
+	public static final String CHECKPOINT_INTERVAL_PARAM = "checkpointInterval";
 
-	private static final long STOPPING_LIMIT_TIME = 60000;
+	static final long STOPPING_LIMIT_TIME = 60000;
+	private static final int LIVE_SNAPSHOT_INTERVAL = 1024;
+	private static final int DEFAULT_CHECKPOINT_INTERVAL = 100000;
+	// The interval may change between runs, and the seed is superseded by the generator state
+	private static final Set<String> VARIABLE_CHECKPOINT_PARAMETERS = Set.of(CHECKPOINT_INTERVAL_PARAM,
+			RANDOM_SEED_PARAM);
 
 	private Problem problem;
-	private int functionEvaluations;
+	private Map<String, Double> parameters;
+	private final LongAdder functionEvaluations = new LongAdder();
 	private int maxFunctionEvaluations;
 	private List<Individual> population;
 	private int populationSize;
-	private Random rnd;
+	private RestorableRandom rnd;
+	private boolean incrementalEvaluation;
+	private int offspringSize;
+	private int threads;
+	private boolean asynchronous;
+	private boolean geometricMutation;
+	private Breeder[] breeders;
+	private List<Individual> evicted = new ArrayList<>();
+	private IndividualPool pool;
+	private int fitnessCacheSize;
+	private FitnessCache fitnessCache;
+	private boolean cacheHitsAsEvaluations;
+	private int consecutiveCacheHits;
+	private PopulationDiversity diversity;
+	private boolean diversityTracked;
+	private boolean rejectDuplicates;
+	private int consecutiveDuplicates;
 
-	private Individual bestSolution;
+	private final AtomicReference<Individual> bestSolution = new AtomicReference<>();
+	private volatile int lastImprovementEvaluations;
 
 	private Selection selection;
 	private Replacement replacement;
 	private Mutation mutation;
 	private Crossover recombination;
+	private Repair repair;
 	private StoppingCriterion stoppingCriterion;
+	private Migration migration;
+	private volatile boolean stopRequested;
 
 	private MetricsCollector metricsCollector;
+	private PhaseProfiler profiler;
+	private String liveMetricsLabels = "";
+	private int liveMetricsId = -1;
+	private int liveSnapshotCountdown;
+	private CheckpointWriter checkpointWriter;
+	private int checkpointInterval;
+	private long nextCheckpoint;
 
 	// Constructor
 	public EvolutionaryAlgorithm(Map<String, Double> parameters, Problem problem) {
@@ -79,61 +208,505 @@ public class EvolutionaryAlgorithm {
 		double mutationProbability = parameters.get(Mutation.MUTATION_PROBABILITY_PARAMETER);
 		double crossoverProbability = parameters.get(Crossover.CROSSOVER_PROBABILITY_PARAM);
 		long randomSeed = parameters.get(RANDOM_SEED_PARAM).longValue();
+		incrementalEvaluation = parameters.getOrDefault(INCREMENTAL_EVALUATION_PARAM, 0.0) != 0.0;
+		offspringSize = parameters.getOrDefault(OFFSPRING_SIZE_PARAM, 0.0).intValue();
+		if (parameters.getOrDefault(ZERO_ALLOCATION_PARAM, 0.0) != 0.0) {
+			pool = new IndividualPool();
+		}
+		fitnessCacheSize = parameters.getOrDefault(FitnessCache.SIZE_PARAM, 0.0).intValue();
+		cacheHitsAsEvaluations = parameters.getOrDefault(FitnessCache.HITS_AS_EVALUATIONS_PARAM, 1.0) != 0.0;
+		threads = parameters.getOrDefault(THREADS_PARAM, (double) Runtime.getRuntime().availableProcessors())
+				.intValue();
+		geometricMutation = parameters.getOrDefault(GeometricBitFlipMutation.GEOMETRIC_MUTATION_PARAM, 0.0) != 0.0;
+		asynchronous = offspringSize == 0 && parameters.getOrDefault(ASYNCHRONOUS_PARAM, 0.0) != 0.0;
+		if (asynchronous) {
+			// The workers share neither the cache, the pool nor the population tracking
+			for (String name : new String[] { FitnessCache.SIZE_PARAM, ZERO_ALLOCATION_PARAM,
+					PopulationDiversity.DIVERSITY_PARAM, PopulationDiversity.REJECT_DUPLICATES_PARAM }) {
+				if (parameters.getOrDefault(name, 0.0) != 0.0) {
+					throw new IllegalArgumentException(name + " is not available in the asynchronous mode");
+				}
+			}
+		}
+		rejectDuplicates = parameters.getOrDefault(PopulationDiversity.REJECT_DUPLICATES_PARAM, 0.0) != 0.0;
+		diversityTracked = rejectDuplicates
+				|| parameters.getOrDefault(PopulationDiversity.DIVERSITY_PARAM, 0.0) != 0.0;
+		if (diversityTracked) {
+			metricsCollector.traceDiversity();
+		}
 
 		this.problem = problem;
+		this.parameters = parameters;
+		checkpointInterval = parameters
+				.getOrDefault(CHECKPOINT_INTERVAL_PARAM, (double) DEFAULT_CHECKPOINT_INTERVAL).intValue();
+		profiler = PhaseProfiler.create(parameters);
+		if (profiler.isEnabled()) {
+			metricsCollector.setPhaseProfiler(profiler);
+		}
 
-		rnd = new Random(randomSeed);
+		rnd = RestorableRandom.create(parameters, randomSeed);
 
 		selection = new BinaryTournament(rnd);
 		replacement = new ElitistReplacement();
 		// TODO - Make mutation and crossover method configurable
-		mutation = new BitFlipMutation(rnd, mutationProbability);
+		mutation = createMutation(rnd, mutationProbability, geometricMutation);
 		recombination = new SinglePointCrossover(rnd, crossoverProbability);
+		boolean repairEnabled = parameters.getOrDefault(Repair.REPAIR_PARAM, 0.0) != 0.0;
+		if (repairEnabled) {
+			repair = createRepair(problem);
+		}
+
+		// One breeder per offspring slot, or per worker in the asynchronous mode
+		int breederCount = asynchronous ? threads : offspringSize;
+		if (breederCount > 0) {
+			breeders = new Breeder[breederCount];
+			for (int i = 0; i < breederCount; i++) {
+				Random breederRandom = rnd.split();
+				breeders[i] = new Breeder(breederRandom,
+						createMutation(breederRandom, mutationProbability, geometricMutation), crossoverProbability,
+						repairEnabled ? createRepair(problem) : null, profiler);
+			}
+		}
+
+		stoppingCriterion = createStoppingCriterion(parameters, problem);
+	}
 
+	// The budget or optimum criterion, or any of the optional criteria, or all of them
+	private StoppingCriterion createStoppingCriterion(Map<String, Double> parameters, Problem problem) {
+		StoppingCriterion criterion;
 		if (maxFunctionEvaluations >= 0) {
 			// TODO - Should we stop when the optimal solution is found?
-			stoppingCriterion = new MaxFunctionEvaluationsCriterion(maxFunctionEvaluations);
+			criterion = new MaxFunctionEvaluationsCriterion(maxFunctionEvaluations);
 		} else {
-			stoppingCriterion = new OptimalSolutionCriterion(problem.getOptimalValue(), STOPPING_LIMIT_TIME);
+			criterion = new OptimalSolutionCriterion(problem.getOptimalValue(), STOPPING_LIMIT_TIME);
+		}
+
+		// Cheap criteria first, the clock based ones only read the clock every few calls
+		List<StoppingCriterion> criteria = new ArrayList<>();
+		if (parameters.containsKey(StagnationCriterion.STAGNATION_PARAM)) {
+			criteria.add(new StagnationCriterion(parameters.get(StagnationCriterion.STAGNATION_PARAM).intValue()));
+		}
+		if (parameters.containsKey(GapCriterion.TARGET_GAP_PARAM)) {
+			criteria.add(
+					new GapCriterion(gapTarget(parameters, problem), parameters.get(GapCriterion.TARGET_GAP_PARAM)));
+		}
+		if (parameters.containsKey(DeadlineCriterion.TIME_LIMIT_PARAM)) {
+			criteria.add(new DeadlineCriterion(parameters.get(DeadlineCriterion.TIME_LIMIT_PARAM).longValue()));
+		}
+		if (parameters.containsKey(EvaluationRateCriterion.MIN_EVALUATION_RATE_PARAM)) {
+			criteria.add(new EvaluationRateCriterion(parameters.get(EvaluationRateCriterion.MIN_EVALUATION_RATE_PARAM),
+					parameters.getOrDefault(EvaluationRateCriterion.RATE_WINDOW_PARAM,
+							(double) EvaluationRateCriterion.DEFAULT_RATE_WINDOW).longValue()));
+		}
+		if (criteria.isEmpty()) {
+			return criterion;
+		}
+		StoppingCriterion[] optional = criteria.toArray(new StoppingCriterion[0]);
+		boolean all = parameters.getOrDefault(StoppingCriterion.ALL_CRITERIA_PARAM, 0.0) != 0.0;
+		return criterion.or(all ? new AndCriterion(optional) : new OrCriterion(optional));
+	}
+
+	// The bound parameter, or the optimal value when it is known, or the relaxation bound of the instance
+	private static double gapTarget(Map<String, Double> parameters, Problem problem) {
+		if (parameters.containsKey(GapCriterion.BOUND_PARAM)) {
+			return parameters.get(GapCriterion.BOUND_PARAM);
 		}
+		if (problem.getOptimalValue() > 0 || !(problem instanceof MultidimensionalKnapsackProblem)) {
+			return problem.getOptimalValue();
+		}
+		return ((MultidimensionalKnapsackProblem) problem).computeUpperBound();
 	}
 
 	// Run the algorithm
 	public Individual run() {
 		metricsCollector.startTimer();
-		population = generateInitialPopulation();
-		functionEvaluations = 0;
+		profiler.startRun(this::getFunctionEvaluations);
+		liveMetricsId = LiveMetrics.register(metricsCollector, liveMetricsLabels);
+		try {
+			return runLoop();
+		} finally {
+			LiveMetrics.unregister(liveMetricsId);
+			liveMetricsId = -1;
+		}
+	}
+
+	private Individual runLoop() {
+		if (checkpointWriter != null && checkpointWriter.exists()) {
+			restoreCheckpoint();
+			startDiversityTracking();
+		} else {
+			population = generateInitialPopulation();
+			functionEvaluations.reset();
+			lastImprovementEvaluations = 0;
+			if (fitnessCacheSize > 0 && population.get(0) instanceof BinaryString) {
+				int words = ((BinaryString) population.get(0)).getWords().length;
+				fitnessCache = new FitnessCache(fitnessCacheSize, words);
+			}
+			startDiversityTracking();
+
+			evaluatePopulation(population);
+			metricsCollector.addGenerationBestIndividual(bestSolution.get());
+		}
+		nextCheckpoint = functionEvaluations.sum() + checkpointInterval;
 
-		evaluatePopulation(population);
-		metricsCollector.addGenerationBestIndividual(bestSolution);
+		if (offspringSize > 0) {
+			runGenerational();
+			profiler.stopRun();
+			metricsCollector.stopTimer();
+			return bestSolution.get();
+		}
+		if (asynchronous) {
+			runAsynchronous();
+			profiler.stopRun();
+			metricsCollector.stopTimer();
+			return bestSolution.get();
+		}
 
 		while (!shouldStop()) {
+			long time = profiler.start();
 			Individual parent1 = selection.selectParent(population);
 			Individual parent2 = selection.selectParent(population);
-			Individual child = recombination.apply(parent1, parent2);
-			child = mutation.apply(child);
+			time = profiler.record(Phase.SELECTION, time);
+			Individual child;
+			if (pool != null) {
+				// Operators write into a recycled individual
+				child = pool.acquire(parent1);
+				recombination.apply(parent1, parent2, child);
+				time = profiler.record(Phase.CROSSOVER, time);
+				mutation.applyInPlace(child);
+			} else {
+				child = recombination.apply(parent1, parent2);
+				time = profiler.record(Phase.CROSSOVER, time);
+				child = mutation.apply(child);
+			}
+			time = profiler.record(Phase.MUTATION, time);
+			if (repair != null) {
+				repair.repair(child);
+				time = profiler.record(Phase.REPAIR, time);
+			}
+			if (isRejectedDuplicate(child)) {
+				recycle(child);
+				continue;
+			}
 			evaluateIndividual(child);
-			population = replacement.replacement(population, Arrays.asList(child));
-			metricsCollector.addGenerationBestIndividual(bestSolution);
+			time = profiler.record(Phase.EVALUATION, time);
+			Individual left = replacement.replace(population, child);
+			if (diversity != null && left != child) {
+				diversity.replace(left, child);
+			}
+			recycle(left);
+			migrate();
+			time = profiler.record(Phase.REPLACEMENT, time);
+			publishTrackedDiversity();
+			metricsCollector.addGenerationBestIndividual(bestSolution.get());
+			profiler.record(Phase.METRICS, time);
+			publishLiveSnapshot();
+			if (checkpointWriter != null && functionEvaluations.sum() >= nextCheckpoint) {
+				writeCheckpoint();
+			}
 		}
+		profiler.stopRun();
 		metricsCollector.stopTimer();
+		if (checkpointWriter != null) {
+			checkpointWriter.close(true);
+		}
+
+		return bestSolution.get();
+	}
+
+	// Encode the state in memory and leave the file to the writer thread
+	private void writeCheckpoint() {
+		nextCheckpoint = functionEvaluations.sum() + checkpointInterval;
+		CheckpointCodec.State<FitnessCache> state = new CheckpointCodec.State<>(parameters,
+				functionEvaluations.sum(), consecutiveCacheHits, consecutiveDuplicates, lastImprovementEvaluations,
+				population, bestSolution.get(), fitnessCache);
+		checkpointWriter.write(CheckpointCodec.encode(state, rnd, metricsCollector));
+	}
+
+	private void restoreCheckpoint() {
+		CheckpointCodec.State<FitnessCache> state;
+		try {
+			state = CheckpointCodec.decode(checkpointWriter.read(), parameters, VARIABLE_CHECKPOINT_PARAMETERS, rnd,
+					metricsCollector, FitnessCache::read);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading checkpoint " + checkpointWriter.getFilePath(), e);
+		}
+		// The seed is superseded by the generator state, report the one of the checkpoint
+		parameters = new HashMap<>(parameters);
+		parameters.put(RANDOM_SEED_PARAM, state.getParameters().get(RANDOM_SEED_PARAM));
+		metricsCollector.setParameters(parameters);
+
+		functionEvaluations.reset();
+		functionEvaluations.add(state.getFunctionEvaluations());
+		consecutiveCacheHits = state.getConsecutiveCacheHits();
+		consecutiveDuplicates = state.getConsecutiveDuplicates();
+		lastImprovementEvaluations = state.getLastImprovementEvaluations();
+		population = state.getPopulation();
+		bestSolution.set(state.getBest());
+		fitnessCache = state.getCache();
+	}
+
+	private static Mutation createMutation(Random rnd, double mutationProbability, boolean geometric) {
+		if (geometric) {
+			return new GeometricBitFlipMutation(rnd, mutationProbability);
+		}
+		return new BitFlipMutation(rnd, mutationProbability);
+	}
+
+	private static Repair createRepair(Problem problem) {
+		if (!(problem instanceof MultidimensionalKnapsackProblem)) {
+			throw new IllegalArgumentException("Repair is only available for the multidimensional knapsack problem");
+		}
+		return new GreedyRepair((MultidimensionalKnapsackProblem) problem);
+	}
+
+	// Return an individual that left the population to the pool
+	private void recycle(Individual individual) {
+		if (pool != null && individual != bestSolution.get()) {
+			pool.release(individual);
+		}
+	}
+
+	// Publish the population diversity for LiveMetrics every LIVE_SNAPSHOT_INTERVAL calls, unless it is tracked
+	private void publishLiveSnapshot() {
+		if (liveMetricsId >= 0 && diversity == null && --liveSnapshotCountdown <= 0) {
+			liveSnapshotCountdown = LIVE_SNAPSHOT_INTERVAL;
+			metricsCollector.publishDiversity(PopulationDiversity.meanHammingDistance(population), Double.NaN);
+		}
+	}
+
+	private void startDiversityTracking() {
+		if (diversityTracked && population.get(0) instanceof BinaryString) {
+			diversity = new PopulationDiversity(population);
+			publishTrackedDiversity();
+		}
+	}
+
+	private void publishTrackedDiversity() {
+		if (diversity != null) {
+			metricsCollector.publishDiversity(diversity.getMeanHammingDistance(), diversity.getEntropy());
+		}
+	}
+
+	// A child already in the population is not evaluated
+	private boolean isRejectedDuplicate(Individual child) {
+		if (!rejectDuplicates || diversity == null) {
+			return false;
+		}
+		if (!diversity.contains(child)) {
+			consecutiveDuplicates = 0;
+			return false;
+		}
+		consecutiveDuplicates++;
+		metricsCollector.incrementDuplicatesRejected();
+		return true;
+	}
+
+	// Island Migration
+	private void migrate() {
+		if (migration != null) {
+			migration.migrate(this);
+		}
+	}
 
-		return bestSolution;
+	/**
+	 * Inserts already evaluated individuals coming from another island through
+	 * the replacement operator. Immigrants do not count as evaluations.
+	 */
+	public void receiveImmigrants(List<Individual> immigrants) {
+		replacement.replace(population, immigrants, evicted);
+		if (diversity != null) {
+			for (Individual immigrant : immigrants) {
+				diversity.add(immigrant);
+			}
+			for (Individual individual : evicted) {
+				diversity.remove(individual);
+			}
+		}
+		for (Individual individual : evicted) {
+			recycle(individual);
+		}
+		evicted.clear();
+		for (Individual immigrant : immigrants) {
+			checkIfBest(immigrant);
+		}
+	}
+
+	// Generational (mu + lambda) loop with parallel breeding and evaluation
+	private void runGenerational() {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			while (!shouldStop()) {
+				Individual[] offspring = new Individual[offspringBatchSize()];
+				List<Individual> parents = population;
+				pool.submit(() -> IntStream.range(0, offspring.length).parallel().forEach(i -> {
+					Individual child = breeders[i].breed(parents);
+					// The multiset is only read while breeding
+					if (rejectDuplicates && diversity != null && diversity.contains(child)) {
+						return;
+					}
+					long time = profiler.start();
+					child.setFitness(computeFitness(child));
+					profiler.record(Phase.EVALUATION, time);
+					offspring[i] = child;
+				})).join();
+
+				// Bookkeeping in slot order keeps the run deterministic
+				long time = profiler.start();
+				List<Individual> children = rejectDuplicates ? new ArrayList<>(offspring.length)
+						: Arrays.asList(offspring);
+				for (Individual child : offspring) {
+					if (child == null) {
+						consecutiveDuplicates++;
+						metricsCollector.incrementDuplicatesRejected();
+						continue;
+					}
+					if (rejectDuplicates) {
+						consecutiveDuplicates = 0;
+						children.add(child);
+					}
+					countEvaluation(child);
+				}
+				time = profiler.record(Phase.METRICS, time);
+				replacement.replace(population, children, evicted);
+				if (diversity != null) {
+					for (Individual child : children) {
+						diversity.add(child);
+					}
+					for (Individual individual : evicted) {
+						diversity.remove(individual);
+					}
+				}
+				evicted.clear();
+				migrate();
+				time = profiler.record(Phase.REPLACEMENT, time);
+				publishTrackedDiversity();
+				metricsCollector.addGenerationBestIndividual(bestSolution.get());
+				profiler.record(Phase.METRICS, time);
+				publishLiveSnapshot();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Never breed past the evaluation budget
+	private int offspringBatchSize() {
+		if (maxFunctionEvaluations < 0) {
+			return offspringSize;
+		}
+		return Math.max(1, Math.min(offspringSize, maxFunctionEvaluations - getFunctionEvaluations()));
+	}
+
+	// Asynchronous steady-state loop, one worker per breeder
+	private void runAsynchronous() {
+		ConcurrentPopulation sharedPopulation = new ConcurrentPopulation(population);
+		population = sharedPopulation;
+		ExecutorService executor = Executors.newFixedThreadPool(breeders.length);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (Breeder breeder : breeders) {
+				workers.add(executor.submit(() -> runWorker(breeder, sharedPopulation)));
+			}
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Asynchronous run interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Asynchronous worker failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		metricsCollector.closeTrace(bestSolution.get());
+	}
+
+	private void runWorker(Breeder breeder, ConcurrentPopulation sharedPopulation) {
+		long allocatedBytes = profiler.threadStarted();
+		while (!shouldStop()) {
+			Individual child = breeder.breed(sharedPopulation);
+			long time = profiler.start();
+			child.setFitness(computeFitness(child));
+			time = profiler.record(Phase.EVALUATION, time);
+			functionEvaluations.increment();
+			metricsCollector.incrementEvaluations();
+			metricsCollector.incrementGenerations();
+			if (checkIfBest(child)) {
+				// Improvements are rare, so only they lock the trace
+				metricsCollector.addBestIndividualImprovement(child);
+			}
+			time = profiler.record(Phase.METRICS, time);
+			sharedPopulation.offer(child, breeder.rnd);
+			profiler.record(Phase.REPLACEMENT, time);
+			// The countdown is shared by the workers, an approximate interval is enough
+			publishLiveSnapshot();
+		}
+		profiler.threadFinished(allocatedBytes);
 	}
 
 	// Solution Evaluation
 	private void evaluateIndividual(Individual individual) {
-		double fitness = problem.evaluate(individual);
+		if (fitnessCache == null) {
+			individual.setFitness(computeFitness(individual));
+			countEvaluation(individual);
+			return;
+		}
+
+		long[] chromosome = ((BinaryString) individual).getWords();
+		long hash = FitnessCache.hash(chromosome);
+		double fitness = fitnessCache.get(chromosome, hash);
+		if (Double.isNaN(fitness)) {
+			metricsCollector.incrementCacheMisses();
+			consecutiveCacheHits = 0;
+			fitness = computeFitness(individual);
+			fitnessCache.put(chromosome, hash, fitness);
+			individual.setFitness(fitness);
+			countEvaluation(individual);
+			return;
+		}
+
+		metricsCollector.incrementCacheHits();
+		consecutiveCacheHits++;
 		individual.setFitness(fitness);
-		functionEvaluations++;
+		EvaluationState state = individual.getEvaluationState();
+		if (state != null) {
+			// The cached loads were not updated with the journaled changes
+			state.invalidate();
+		}
+		if (cacheHitsAsEvaluations) {
+			countEvaluation(individual);
+		} else {
+			checkIfBest(individual);
+		}
+	}
+
+	// Thread-safe fitness computation, without any bookkeeping
+	private double computeFitness(Individual individual) {
+		EvaluationState state = individual.getEvaluationState();
+		if (state != null && !state.isStale()) {
+			return problem.evaluateDelta(individual, state.getChanges(), state.getChangeCount());
+		}
+		return problem.evaluate(individual);
+	}
+
+	private void countEvaluation(Individual individual) {
+		functionEvaluations.increment();
 		metricsCollector.incrementEvaluations();
 		checkIfBest(individual);
 	}
 
-	private void checkIfBest(Individual individual) {
-		if (bestSolution == null || individual.getFitness() > bestSolution.getFitness()) {
-			bestSolution = individual;
-		}
+	// Compare-and-set update of the best solution, true if individual became the best
+	private boolean checkIfBest(Individual individual) {
+		Individual best;
+		do {
+			best = bestSolution.get();
+			if (best != null && individual.getFitness() <= best.getFitness()) {
+				return false;
+			}
+		} while (!bestSolution.compareAndSet(best, individual));
+		lastImprovementEvaluations = functionEvaluations.intValue();
+		return true;
 	}
 
 	private void evaluatePopulation(List<Individual> population) {
@@ -146,28 +719,129 @@ public class EvolutionaryAlgorithm {
 	private List<Individual> generateInitialPopulation() {
 		List<Individual> population = new ArrayList<>();
 		for (int i = 0; i < populationSize; i++) {
-			population.add(problem.generateRandomIndividual(rnd));
+			Individual individual = problem.generateRandomIndividual(rnd);
+			if (incrementalEvaluation) {
+				// Children inherit a copy of the cached state through the operators
+				individual.setEvaluationState(new EvaluationState());
+			}
+			if (repair != null) {
+				repair.repair(individual);
+			}
+			population.add(individual);
 		}
 		return population;
 	}
 
 	// Stopping Criterion
 	private boolean shouldStop() {
-		if (stoppingCriterion.isSatisfied(this)) {
+		if (stopRequested || stoppingCriterion.isSatisfied(this)) {
+			return true;
+		}
+		// A converged population may only produce cached children, which do not use the budget
+		if (!cacheHitsAsEvaluations && maxFunctionEvaluations >= 0 && consecutiveCacheHits > maxFunctionEvaluations) {
+			return true;
+		}
+		// Likewise when every child is a duplicate
+		if (rejectDuplicates && maxFunctionEvaluations >= 0 && consecutiveDuplicates > maxFunctionEvaluations) {
 			return true;
 		}
 		return false;
 	}
 
+	// Ask a running algorithm to stop at the end of its current iteration
+	public void requestStop() {
+		stopRequested = true;
+	}
+
+	public StoppingCriterion getStoppingCriterion() {
+		return stoppingCriterion;
+	}
+
+	// Replace the stopping criterion chosen from the parameters
+	public void setStoppingCriterion(StoppingCriterion stoppingCriterion) {
+		this.stoppingCriterion = stoppingCriterion;
+	}
+
+	// Extra Prometheus labels of the run in LiveMetrics, such as island="0"
+	public void setLiveMetricsLabels(String liveMetricsLabels) {
+		this.liveMetricsLabels = liveMetricsLabels;
+	}
+
+	/**
+	 * Saves checkpoints to the given file, and resumes from it when it exists.
+	 * Only the sequential steady-state loop can be checkpointed.
+	 */
+	public void setCheckpointFile(String filePath) {
+		if (offspringSize > 0 || asynchronous || migration != null) {
+			throw new IllegalArgumentException("Checkpoints are only available for the sequential steady-state algorithm");
+		}
+		checkpointWriter = new CheckpointWriter(filePath);
+	}
+
+	public void setMigration(Migration migration) {
+		if (migration != null && checkpointWriter != null) {
+			throw new IllegalArgumentException("Checkpoints are not available with migration");
+		}
+		this.migration = migration;
+	}
+
+	public List<Individual> getPopulation() {
+		return population;
+	}
+
 	public int getFunctionEvaluations() {
-		return functionEvaluations;
+		return functionEvaluations.intValue();
 	}
 
 	public Individual getBestSolution() {
-		return bestSolution;
+		return bestSolution.get();
+	}
+
+	// Function evaluations when the best solution last improved
+	public int getLastImprovementEvaluations() {
+		return lastImprovementEvaluations;
 	}
 
 	public MetricsCollector getMetricsCollector() {
 		return metricsCollector;
 	}
+
+	/**
+	 * Selection, crossover, mutation and optional repair operators of one
+	 * offspring slot in the generational mode, or of one worker in the
+	 * asynchronous mode, sharing a private random generator.
+	 */
+	private static class Breeder {
+		private final Selection selection;
+		private final Crossover recombination;
+		private final Mutation mutation;
+		private final Repair repair;
+		private final Random rnd;
+		private final PhaseProfiler profiler;
+
+		Breeder(Random rnd, Mutation mutation, double crossoverProbability, Repair repair, PhaseProfiler profiler) {
+			this.rnd = rnd;
+			selection = new BinaryTournament(rnd);
+			recombination = new SinglePointCrossover(rnd, crossoverProbability);
+			this.mutation = mutation;
+			this.repair = repair;
+			this.profiler = profiler;
+		}
+
+		Individual breed(List<Individual> population) {
+			long time = profiler.start();
+			Individual parent1 = selection.selectParent(population);
+			Individual parent2 = selection.selectParent(population);
+			time = profiler.record(Phase.SELECTION, time);
+			Individual child = recombination.apply(parent1, parent2);
+			time = profiler.record(Phase.CROSSOVER, time);
+			child = mutation.apply(child);
+			time = profiler.record(Phase.MUTATION, time);
+			if (repair != null) {
+				repair.repair(child);
+				profiler.record(Phase.REPAIR, time);
+			}
+			return child;
+		}
+	}
 }
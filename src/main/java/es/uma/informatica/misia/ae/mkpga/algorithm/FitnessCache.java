@@ -0,0 +1,154 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import es.uma.informatica.misia.ae.mkpga.util.CheckpointCodec;
+
+/**
+ * Memoization table from packed chromosomes to fitness values, used to skip
+ * the evaluation of children identical to a recently evaluated individual.
+ *
+ * The table uses open addressing on a 64-bit hash of the chromosome words.
+ * An entry can live in any slot of a small probe window starting at its home
+ * slot, and a hit is only reported after comparing the stored words, so hash
+ * collisions never return a wrong fitness. Chromosomes are copied into one
+ * flat long[] and the table does not allocate after construction.
+ *
+ * When the window is full, an entry is evicted with the CLOCK policy: every
+ * hit sets the reference bit of its slot, and the hand sweeps the window
+ * clearing bits until it finds an entry that was not used since its last pass.
+ */
+public class FitnessCache implements CheckpointCodec.Section {
+	public static final String SIZE_PARAM = "fitnessCacheSize";
+	public static final String HITS_AS_EVALUATIONS_PARAM = "cacheHitsAsEvaluations";
+
+	private static final int PROBE_WINDOW = 8;
+
+	private final int mask;
+	private final int words;
+	private final long[] hashes;
+	private final long[] keys;
+	private final double[] fitness;
+	private final boolean[] occupied;
+	private final boolean[] referenced;
+	private int hand;
+
+	// Capacity is rounded up to a power of two, words is the chromosome length in longs
+	public FitnessCache(int capacity, int words) {
+		int size = Math.max(PROBE_WINDOW, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+		this.mask = size - 1;
+		this.words = words;
+		this.hashes = new long[size];
+		this.keys = new long[size * words];
+		this.fitness = new double[size];
+		this.occupied = new boolean[size];
+		this.referenced = new boolean[size];
+	}
+
+	// Binary form used by checkpoints
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(hashes.length);
+		out.writeInt(words);
+		out.writeInt(hand);
+		for (int slot = 0; slot < hashes.length; slot++) {
+			out.writeBoolean(occupied[slot]);
+			if (occupied[slot]) {
+				out.writeBoolean(referenced[slot]);
+				out.writeLong(hashes[slot]);
+				out.writeDouble(fitness[slot]);
+				for (int i = 0; i < words; i++) {
+					out.writeLong(keys[slot * words + i]);
+				}
+			}
+		}
+	}
+
+	public static FitnessCache read(DataInput in) throws IOException {
+		int size = in.readInt();
+		FitnessCache cache = new FitnessCache(size, in.readInt());
+		cache.hand = in.readInt();
+		for (int slot = 0; slot < size; slot++) {
+			cache.occupied[slot] = in.readBoolean();
+			if (cache.occupied[slot]) {
+				cache.referenced[slot] = in.readBoolean();
+				cache.hashes[slot] = in.readLong();
+				cache.fitness[slot] = in.readDouble();
+				for (int i = 0; i < cache.words; i++) {
+					cache.keys[slot * cache.words + i] = in.readLong();
+				}
+			}
+		}
+		return cache;
+	}
+
+	public static long hash(long[] chromosome) {
+		long hash = 0x9E3779B97F4A7C15L;
+		for (long word : chromosome) {
+			hash = Long.rotateLeft(hash ^ word, 27) * 0xBF58476D1CE4E5B9L;
+		}
+		// SplitMix64 finalizer
+		hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+		hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+		return hash ^ (hash >>> 31);
+	}
+
+	/**
+	 * Fitness stored for the chromosome, or NaN when it is not in the table.
+	 */
+	public double get(long[] chromosome, long hash) {
+		int home = (int) hash & mask;
+		for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+			int slot = (home + probe) & mask;
+			if (occupied[slot] && hashes[slot] == hash && matches(slot, chromosome)) {
+				referenced[slot] = true;
+				return fitness[slot];
+			}
+		}
+		return Double.NaN;
+	}
+
+	public void put(long[] chromosome, long hash, double value) {
+		int home = (int) hash & mask;
+		int slot = -1;
+		for (int probe = 0; probe < PROBE_WINDOW; probe++) {
+			int candidate = (home + probe) & mask;
+			if (!occupied[candidate]) {
+				slot = candidate;
+				break;
+			}
+		}
+		if (slot < 0) {
+			slot = evict(home);
+		}
+		hashes[slot] = hash;
+		System.arraycopy(chromosome, 0, keys, slot * words, words);
+		fitness[slot] = value;
+		occupied[slot] = true;
+		referenced[slot] = false;
+	}
+
+	// CLOCK sweep over the probe window, bounded by two passes
+	private int evict(int home) {
+		while (true) {
+			int slot = (home + hand) & mask;
+			hand = (hand + 1) % PROBE_WINDOW;
+			if (!referenced[slot]) {
+				return slot;
+			}
+			referenced[slot] = false;
+		}
+	}
+
+	private boolean matches(int slot, long[] chromosome) {
+		int offset = slot * words;
+		for (int i = 0; i < words; i++) {
+			if (keys[offset + i] != chromosome[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
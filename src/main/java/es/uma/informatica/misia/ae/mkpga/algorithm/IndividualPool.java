@@ -0,0 +1,28 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm;
+
+import java.util.ArrayDeque;
+
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Pool of spare individuals used as offspring buffers. Individuals that leave
+ * the population are released into the pool and acquired again for the next
+ * children, so once the pool is warm the algorithm does not allocate them.
+ */
+public class IndividualPool {
+	private final ArrayDeque<Individual> spares = new ArrayDeque<>();
+
+	// Spare individual, or a copy of template when the pool is empty
+	public Individual acquire(Individual template) {
+		Individual individual = spares.pollLast();
+		return individual != null ? individual : template.copy();
+	}
+
+	public void release(Individual individual) {
+		spares.addLast(individual);
+	}
+
+	public int size() {
+		return spares.size();
+	}
+}
@@ -0,0 +1,147 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.migration.Migration;
+import es.uma.informatica.misia.ae.mkpga.algorithm.migration.MigrationTopology;
+import es.uma.informatica.misia.ae.mkpga.algorithm.migration.QueueMigration;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.Problem;
+import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+
+/**
+ * The IslandModel class runs several independent EvolutionaryAlgorithm
+ * instances, the islands, each on its own thread and with its own operators
+ * and random generator. Islands periodically exchange their best individuals
+ * through a {@link QueueMigration} on the configured {@link MigrationTopology}.
+ * 
+ * The function evaluation budget is split evenly among the islands, the
+ * first ones taking one more evaluation each for the remainder, and each
+ * island keeps the configured population size. When running until the optimal
+ * value is found, the first island to reach it asks the others to stop.
+ * 
+ * Because migration depends on thread timing, island runs are not
+ * reproducible from the seed.
+ */
+public class IslandModel {
+	public static final String ISLANDS_PARAM = "islands";
+
+	private static final int DEFAULT_MIGRATION_INTERVAL = 100;
+	private static final int DEFAULT_MIGRANTS = 1;
+	private static final int INBOX_CAPACITY = 16;
+
+	private Problem problem;
+	private boolean stopAtOptimum;
+	private List<EvolutionaryAlgorithm> islands;
+	private Individual bestSolution;
+	private MetricsCollector metricsCollector;
+
+	public IslandModel(Map<String, Double> parameters, Problem problem) {
+		this.problem = problem;
+		this.metricsCollector = new MetricsCollector(problem, parameters);
+		configureIslands(parameters);
+	}
+
+	private void configureIslands(Map<String, Double> parameters) {
+		int numberIslands = parameters.get(ISLANDS_PARAM).intValue();
+		int maxFunctionEvaluations = parameters.get(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM).intValue();
+		stopAtOptimum = maxFunctionEvaluations < 0;
+		int interval = parameters.getOrDefault(Migration.MIGRATION_INTERVAL_PARAM, (double) DEFAULT_MIGRATION_INTERVAL)
+				.intValue();
+		int migrants = parameters.getOrDefault(Migration.MIGRANTS_PARAM, (double) DEFAULT_MIGRANTS).intValue();
+		int topologyIndex = parameters.getOrDefault(Migration.MIGRATION_TOPOLOGY_PARAM, 0.0).intValue();
+		if (topologyIndex < 0 || topologyIndex >= MigrationTopology.values().length) {
+			throw new IllegalArgumentException("Unknown migration topology " + topologyIndex + ", must be between 0 and "
+					+ (MigrationTopology.values().length - 1));
+		}
+		MigrationTopology topology = MigrationTopology.values()[topologyIndex];
+		Random rnd = new Random(parameters.get(EvolutionaryAlgorithm.RANDOM_SEED_PARAM).longValue());
+
+		List<Queue<Individual>> inboxes = new ArrayList<>();
+		for (int i = 0; i < numberIslands; i++) {
+			inboxes.add(new ArrayBlockingQueue<>(INBOX_CAPACITY));
+		}
+
+		islands = new ArrayList<>();
+		for (int i = 0; i < numberIslands; i++) {
+			Map<String, Double> islandParameters = new HashMap<>(parameters);
+			islandParameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) rnd.nextLong());
+			if (maxFunctionEvaluations >= 0) {
+				int islandEvaluations = maxFunctionEvaluations / numberIslands
+						+ (i < maxFunctionEvaluations % numberIslands ? 1 : 0);
+				islandParameters.put(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM, (double) islandEvaluations);
+			}
+			EvolutionaryAlgorithm island = new EvolutionaryAlgorithm(islandParameters, problem);
+			island.setMigration(new QueueMigration(i, inboxes, topology, interval, migrants, new Random(rnd.nextLong())));
+			island.setLiveMetricsLabels("island=\"" + i + "\"");
+			islands.add(island);
+		}
+	}
+
+	// Run all islands and return the best solution found by any of them
+	public Individual run() {
+		metricsCollector.startTimer();
+		ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+		try {
+			List<Future<Individual>> results = new ArrayList<>();
+			for (EvolutionaryAlgorithm island : islands) {
+				results.add(executor.submit(runIsland(island)));
+			}
+			for (Future<Individual> result : results) {
+				Individual islandBest = result.get();
+				if (bestSolution == null || islandBest.getFitness() > bestSolution.getFitness()) {
+					bestSolution = islandBest;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Island model interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Island failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		metricsCollector.stopTimer();
+
+		metricsCollector.addGenerationBestIndividual(bestSolution);
+		for (EvolutionaryAlgorithm island : islands) {
+			metricsCollector.addIslandMetrics(island.getMetricsCollector());
+		}
+		return bestSolution;
+	}
+
+	private Callable<Individual> runIsland(EvolutionaryAlgorithm island) {
+		return () -> {
+			Individual islandBest = island.run();
+			if (stopAtOptimum && islandBest.getFitness() >= problem.getOptimalValue()) {
+				for (EvolutionaryAlgorithm other : islands) {
+					other.requestStop();
+				}
+			}
+			return islandBest;
+		};
+	}
+
+	public Individual getBestSolution() {
+		return bestSolution;
+	}
+
+	public List<EvolutionaryAlgorithm> getIslands() {
+		return islands;
+	}
+
+	public MetricsCollector getMetricsCollector() {
+		return metricsCollector;
+	}
+}
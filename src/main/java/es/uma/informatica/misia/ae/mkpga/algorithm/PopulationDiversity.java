@@ -0,0 +1,282 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Diversity measures of a population of binary strings.
+ *
+ * An instance tracks a population as individuals are inserted and evicted:
+ * the number of ones at each locus, the sums of those counts and of their
+ * squares, how many loci have each count, and a multiset of chromosome hashes.
+ * An update costs one pass over the words of the chromosome plus the changed
+ * loci. The mean Hamming distance and duplicate lookups then take constant
+ * expected time, and the entropy O(population size). All of them only depend on the
+ * current population, not on the order of the updates, so a run resumed from
+ * a checkpoint reports the same values.
+ *
+ * The multiset is keyed by the {@link FitnessCache#hash} of the chromosome and
+ * keeps a copy of its words, which are compared on every hash match as in
+ * the fitness cache, so a hash collision never makes a different chromosome a
+ * duplicate.
+ */
+public class PopulationDiversity {
+	public static final String DIVERSITY_PARAM = "diversity";
+	public static final String REJECT_DUPLICATES_PARAM = "rejectDuplicates";
+
+	private static final double LOG_2 = Math.log(2);
+
+	private final int length;
+	private final int[] ones;
+	private int size;
+	private long totalOnes;
+	private long sumOfSquares;
+
+	// Number of loci by number of ones, and entropy of a locus by number of ones for entropySize individuals
+	private int[] lociWithCount = new int[2];
+	private double[] entropyTerms = new double[0];
+	private int entropySize = -1;
+
+	// Open addressing multiset of chromosomes with their hashes, a zero count is an empty slot
+	private final int words;
+	private long[] hashes;
+	private long[] keys;
+	private int[] counts;
+	private int distinct;
+
+	public PopulationDiversity(List<Individual> population) {
+		this.length = ((BinaryString) population.get(0)).getLength();
+		this.ones = new int[length];
+		this.words = ((BinaryString) population.get(0)).getWords().length;
+		lociWithCount[0] = length;
+		int capacity = Integer.highestOneBit(Math.max(8, population.size() * 4) - 1) << 1;
+		this.hashes = new long[capacity];
+		this.keys = new long[capacity * words];
+		this.counts = new int[capacity];
+		for (Individual individual : population) {
+			add(individual);
+		}
+	}
+
+	public void add(Individual individual) {
+		if (lociWithCount.length < size + 2) {
+			lociWithCount = Arrays.copyOf(lociWithCount, lociWithCount.length * 2);
+		}
+		long[] words = ((BinaryString) individual).getWords();
+		for (int w = 0; w < words.length; w++) {
+			for (long word = words[w]; word != 0; word &= word - 1) {
+				increment(w * Long.SIZE + Long.numberOfTrailingZeros(word));
+			}
+		}
+		size++;
+		addChromosome(words);
+	}
+
+	public void remove(Individual individual) {
+		long[] words = ((BinaryString) individual).getWords();
+		for (int w = 0; w < words.length; w++) {
+			for (long word = words[w]; word != 0; word &= word - 1) {
+				decrement(w * Long.SIZE + Long.numberOfTrailingZeros(word));
+			}
+		}
+		size--;
+		removeChromosome(words);
+	}
+
+	// Evict one individual and insert another, only the loci where they differ change
+	public void replace(Individual evicted, Individual inserted) {
+		long[] evictedWords = ((BinaryString) evicted).getWords();
+		long[] insertedWords = ((BinaryString) inserted).getWords();
+		for (int w = 0; w < insertedWords.length; w++) {
+			long differences = evictedWords[w] ^ insertedWords[w];
+			for (long word = differences & insertedWords[w]; word != 0; word &= word - 1) {
+				increment(w * Long.SIZE + Long.numberOfTrailingZeros(word));
+			}
+			for (long word = differences & evictedWords[w]; word != 0; word &= word - 1) {
+				decrement(w * Long.SIZE + Long.numberOfTrailingZeros(word));
+			}
+		}
+		removeChromosome(evictedWords);
+		addChromosome(insertedWords);
+	}
+
+	private void increment(int locus) {
+		int count = ones[locus]++;
+		totalOnes++;
+		sumOfSquares += 2L * count + 1;
+		lociWithCount[count]--;
+		lociWithCount[count + 1]++;
+	}
+
+	private void decrement(int locus) {
+		int count = ones[locus]--;
+		totalOnes--;
+		sumOfSquares -= 2L * count - 1;
+		lociWithCount[count]--;
+		lociWithCount[count - 1]++;
+	}
+
+	// True if an individual with the same chromosome is in the population
+	public boolean contains(Individual individual) {
+		long[] chromosome = ((BinaryString) individual).getWords();
+		return counts[slot(chromosome, FitnessCache.hash(chromosome))] > 0;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	// Number of different chromosomes in the population
+	public int getDistinctCount() {
+		return distinct;
+	}
+
+	/**
+	 * Mean Hamming distance between two distinct individuals divided by the
+	 * length, as {@link #meanHammingDistance}. A locus with c ones differs in
+	 * c * (n - c) of the pairs, and the sum over the loci is n * sum(c) -
+	 * sum(c^2).
+	 */
+	public double getMeanHammingDistance() {
+		if (size < 2) {
+			return Double.NaN;
+		}
+		double differences = (double) size * totalOnes - sumOfSquares;
+		return differences / ((double) size * (size - 1) / 2) / length;
+	}
+
+	// Mean binary entropy of the loci in bits, 0 for a converged population and 1 at most
+	public double getEntropy() {
+		if (size < 1) {
+			return Double.NaN;
+		}
+		if (entropySize != size) {
+			// The terms depend on the population size, which only changes outside of steady-state runs
+			entropySize = size;
+			entropyTerms = new double[size + 1];
+			for (int count = 1; count < size; count++) {
+				double p = (double) count / size;
+				entropyTerms[count] = -(p * Math.log(p) + (1 - p) * Math.log(1 - p)) / LOG_2;
+			}
+		}
+		double entropy = 0;
+		for (int count = 1; count < size; count++) {
+			entropy += lociWithCount[count] * entropyTerms[count];
+		}
+		return entropy / length;
+	}
+
+	// Slot of the chromosome, or the empty slot where it would be inserted
+	private int slot(long[] chromosome, long hash) {
+		int mask = hashes.length - 1;
+		int slot = home(hash, mask);
+		while (counts[slot] > 0 && !(hashes[slot] == hash && matches(slot, chromosome))) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static int home(long hash, int mask) {
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private boolean matches(int slot, long[] chromosome) {
+		int offset = slot * words;
+		for (int i = 0; i < words; i++) {
+			if (keys[offset + i] != chromosome[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void addChromosome(long[] chromosome) {
+		long hash = FitnessCache.hash(chromosome);
+		int slot = slot(chromosome, hash);
+		if (counts[slot]++ > 0) {
+			return;
+		}
+		hashes[slot] = hash;
+		System.arraycopy(chromosome, 0, keys, slot * words, words);
+		if (++distinct * 2 > hashes.length) {
+			grow();
+		}
+	}
+
+	// Backward shift deletion, so lookups never need tombstones
+	private void removeChromosome(long[] chromosome) {
+		int slot = slot(chromosome, FitnessCache.hash(chromosome));
+		if (counts[slot] == 0 || --counts[slot] > 0) {
+			return;
+		}
+		distinct--;
+		int mask = hashes.length - 1;
+		int empty = slot;
+		for (int next = (empty + 1) & mask; counts[next] > 0; next = (next + 1) & mask) {
+			int home = home(hashes[next], mask);
+			// Move the entry back unless its home lies cyclically in (empty, next]
+			if (((next - home) & mask) >= ((next - empty) & mask)) {
+				hashes[empty] = hashes[next];
+				System.arraycopy(keys, next * words, keys, empty * words, words);
+				counts[empty] = counts[next];
+				counts[next] = 0;
+				empty = next;
+			}
+		}
+	}
+
+	// The entries are distinct, so each one goes to the first empty slot from its home
+	private void grow() {
+		long[] oldHashes = hashes;
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		hashes = new long[oldHashes.length * 2];
+		keys = new long[oldKeys.length * 2];
+		counts = new int[oldCounts.length * 2];
+		int mask = hashes.length - 1;
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldCounts[i] > 0) {
+				int slot = home(oldHashes[i], mask);
+				while (counts[slot] > 0) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[i];
+				System.arraycopy(oldKeys, i * words, keys, slot * words, words);
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	/**
+	 * Mean Hamming distance between two distinct individuals, divided by the
+	 * chromosome length, so 0 for a converged population and about 0.5 for a
+	 * random one. Computed from the number of ones at each locus in
+	 * O(population size * length). NaN for other individuals or fewer than two
+	 * of them.
+	 */
+	public static double meanHammingDistance(List<Individual> population) {
+		int n = population.size();
+		if (n < 2 || !(population.get(0) instanceof BinaryString)) {
+			return Double.NaN;
+		}
+		int length = ((BinaryString) population.get(0)).getLength();
+		int[] ones = new int[length];
+		for (int i = 0; i < n; i++) {
+			long[] words = ((BinaryString) population.get(i)).getWords();
+			for (int w = 0; w < words.length; w++) {
+				for (long word = words[w]; word != 0; word &= word - 1) {
+					ones[w * Long.SIZE + Long.numberOfTrailingZeros(word)]++;
+				}
+			}
+		}
+		// A locus with c ones differs in c * (n - c) of the pairs
+		double differences = 0;
+		for (int count : ones) {
+			differences += (double) count * (n - count);
+		}
+		return differences / ((double) n * (n - 1) / 2) / length;
+	}
+}
@@ -0,0 +1,353 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.Crossover;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.Mutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.DeadlineCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.EvaluationRateCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.StoppingCriterion;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.Problem;
+import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+
+/**
+ * The PortfolioSolver class runs one EvolutionaryAlgorithm per combination of
+ * crossover and mutation probabilities on the same instance at the same time,
+ * and races them: after each round the worse half of the configurations is
+ * cancelled and the budget they would have used goes to the survivors.
+ * 
+ * The initial populations are charged to the evaluation budget first, and the
+ * rest is split evenly among the rounds and, within a round, among the
+ * configurations still racing. A configuration that uses up its share waits
+ * for the round to end. The number of rounds is capped so that every
+ * configuration breeds at least a population of children in the first round,
+ * and the members run the steady-state loop, so a portfolio never uses more
+ * evaluations than its budget. When running until the optimal value is
+ * found, the rounds split the time limit instead. Every configuration shares
+ * a global best solution, and all of them stop as soon as one reaches the
+ * optimal value of the instance, when it is known.
+ * 
+ * The optional stopping criteria of the parameters apply to each
+ * configuration, which then stops breeding and counts as arrived in the
+ * rounds that follow, and the time limit also stops the whole portfolio. A minimum evaluation rate is rejected, because the
+ * configurations wait for each other between the rounds.
+ * 
+ * Each configuration runs on its own virtual thread when the JVM supports
+ * them, and on a platform thread otherwise. Because the rounds depend on
+ * thread timing, portfolio runs are not reproducible from the seed.
+ */
+public class PortfolioSolver {
+	public static final String ROUNDS_PARAM = "racingRounds";
+	public static final double[] DEFAULT_CROSSOVER_PROBABILITIES = { 0.1, 0.3, 0.5, 0.7, 0.9, 1 };
+	public static final double[] DEFAULT_MUTATION_PROBABILITIES = { 0.01, 0.05, 0.1, 0.2, 0.3, 0.5 };
+
+	private static final long POLL_INTERVAL = 10;
+	private static final int MIN_ROUND_POPULATIONS = 1;
+
+	private Problem problem;
+	private int maxFunctionEvaluations;
+	private int populationSize;
+	private int rounds;
+	private List<Member> members;
+	private List<Member> racing;
+	private long remainingBudget;
+	private Semaphore arrivals = new Semaphore(0);
+	private AtomicReference<Individual> globalBest = new AtomicReference<>();
+	private volatile boolean targetReached;
+	private long timeLimit = Long.MAX_VALUE;
+	private MetricsCollector metricsCollector;
+
+	public PortfolioSolver(Map<String, Double> parameters, double[] crossoverProbabilities,
+			double[] mutationProbabilities, Problem problem) {
+		this.problem = problem;
+		this.metricsCollector = new MetricsCollector(problem, parameters);
+		configureMembers(parameters, crossoverProbabilities, mutationProbabilities);
+	}
+
+	private void configureMembers(Map<String, Double> parameters, double[] crossoverProbabilities,
+			double[] mutationProbabilities) {
+		maxFunctionEvaluations = parameters.get(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM).intValue();
+		populationSize = parameters.get(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM).intValue();
+		// The generational and asynchronous loops may overshoot the share of a round
+		if (parameters.getOrDefault(EvolutionaryAlgorithm.OFFSPRING_SIZE_PARAM, 0.0) != 0.0
+				|| parameters.getOrDefault(EvolutionaryAlgorithm.ASYNCHRONOUS_PARAM, 0.0) != 0.0) {
+			throw new IllegalArgumentException("Portfolio configurations must run the steady-state loop");
+		}
+		if (parameters.containsKey(EvaluationRateCriterion.MIN_EVALUATION_RATE_PARAM)) {
+			throw new IllegalArgumentException(EvaluationRateCriterion.MIN_EVALUATION_RATE_PARAM
+					+ " is not available in portfolio mode, configurations wait between rounds");
+		}
+		if (parameters.containsKey(DeadlineCriterion.TIME_LIMIT_PARAM)) {
+			timeLimit = parameters.get(DeadlineCriterion.TIME_LIMIT_PARAM).longValue();
+		}
+		Random rnd = new Random(parameters.get(EvolutionaryAlgorithm.RANDOM_SEED_PARAM).longValue());
+
+		members = new ArrayList<>();
+		for (double crossoverProbability : crossoverProbabilities) {
+			for (double mutationProbability : mutationProbabilities) {
+				Map<String, Double> memberParameters = new HashMap<>(parameters);
+				memberParameters.put(Crossover.CROSSOVER_PROBABILITY_PARAM, crossoverProbability);
+				memberParameters.put(Mutation.MUTATION_PROBABILITY_PARAMETER, mutationProbability);
+				memberParameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) rnd.nextLong());
+				EvolutionaryAlgorithm algorithm = new EvolutionaryAlgorithm(memberParameters, problem);
+				algorithm.setLiveMetricsLabels("crossover=\"" + crossoverProbability + "\",mutation=\""
+						+ mutationProbability + "\"");
+				members.add(new Member(algorithm));
+			}
+		}
+
+		// Successive halving down to a single configuration by default
+		int defaultRounds = 1;
+		while (1 << (defaultRounds - 1) < members.size()) {
+			defaultRounds++;
+		}
+		rounds = Math.max(1, parameters.getOrDefault(ROUNDS_PARAM, (double) defaultRounds).intValue());
+		if (maxFunctionEvaluations >= 0) {
+			long breedingBudget = maxFunctionEvaluations - (long) populationSize * members.size();
+			if (breedingBudget < 0) {
+				throw new IllegalArgumentException("A budget of " + maxFunctionEvaluations
+						+ " evaluations does not cover the initial populations of " + members.size()
+						+ " configurations");
+			}
+			long minRoundBudget = (long) MIN_ROUND_POPULATIONS * populationSize * members.size();
+			rounds = (int) Math.max(1, Math.min(rounds, breedingBudget / Math.max(1, minRoundBudget)));
+		}
+	}
+
+	// Race all configurations and return the best solution found by any of them
+	public Individual run() {
+		metricsCollector.startTimer();
+		racing = new ArrayList<>(members);
+		// Every member evaluates its initial population before its first check
+		remainingBudget = maxFunctionEvaluations - (long) populationSize * members.size();
+		for (Member member : members) {
+			member.grant(populationSize);
+		}
+		startRound(1);
+		ExecutorService executor = newThreadPerTaskExecutor(members.size());
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (Member member : members) {
+				results.add(executor.submit(() -> {
+					boolean completed = false;
+					try {
+						member.algorithm.run();
+						completed = true;
+					} finally {
+						if (completed) {
+							member.finish();
+						} else {
+							// Failed, do not keep the round waiting
+							arrivals.release(members.size());
+						}
+					}
+				}));
+			}
+			race();
+			for (Member member : members) {
+				member.cancel();
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Portfolio interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Portfolio configuration failed", e.getCause());
+		} finally {
+			for (Member member : members) {
+				member.cancel();
+			}
+			executor.shutdownNow();
+		}
+		metricsCollector.stopTimer();
+
+		Individual bestSolution = globalBest.get();
+		metricsCollector.addGenerationBestIndividual(bestSolution);
+		long evaluations = 0;
+		for (Member member : members) {
+			metricsCollector.addPortfolioMetrics(member.algorithm.getMetricsCollector(), member.rounds);
+			evaluations += member.algorithm.getFunctionEvaluations();
+		}
+		if (maxFunctionEvaluations >= 0 && evaluations > maxFunctionEvaluations) {
+			throw new IllegalStateException(
+					"Portfolio used " + evaluations + " evaluations of a budget of " + maxFunctionEvaluations);
+		}
+		return bestSolution;
+	}
+
+	private void race() throws InterruptedException {
+		for (int round = 1; round <= rounds && !finished(); round++) {
+			if (maxFunctionEvaluations >= 0) {
+				awaitArrivals(racing.size());
+			} else {
+				awaitDeadline(EvolutionaryAlgorithm.STOPPING_LIMIT_TIME * round / rounds);
+			}
+			if (round < rounds && !finished()) {
+				// Keep the better half, ties keep the configuration order
+				racing.sort(Comparator.comparingDouble(Member::bestFitness).reversed());
+				int survivors = (racing.size() + 1) / 2;
+				for (Member culled : racing.subList(survivors, racing.size())) {
+					culled.cancel();
+				}
+				racing = new ArrayList<>(racing.subList(0, survivors));
+				startRound(round + 1);
+			}
+		}
+	}
+
+	// Grant the racing members an even share of the budget left for this and the remaining rounds
+	private void startRound(int round) {
+		for (Member member : racing) {
+			member.rounds = round;
+		}
+		if (maxFunctionEvaluations < 0) {
+			return;
+		}
+		long share = remainingBudget / (rounds - round + 1) / racing.size();
+		if (round == rounds) {
+			share = remainingBudget / racing.size();
+		}
+		for (Member member : racing) {
+			member.grant(share);
+		}
+		remainingBudget -= share * racing.size();
+	}
+
+	// Every racing member used up its share or finished
+	private void awaitArrivals(int racing) throws InterruptedException {
+		while (!finished() && !arrivals.tryAcquire(racing, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+			// The timeout only rechecks whether the portfolio is finished
+		}
+	}
+
+	private void awaitDeadline(long elapsed) throws InterruptedException {
+		while (!finished() && metricsCollector.getExecutionTime() < elapsed) {
+			Thread.sleep(POLL_INTERVAL);
+		}
+	}
+
+	// A member reached the target, or the time limit is over even for the members waiting for a round
+	private boolean finished() {
+		return targetReached || metricsCollector.getExecutionTime() >= timeLimit;
+	}
+
+	// Share a member's best solution, true when the optimal value has been reached
+	private boolean offerBest(Individual individual) {
+		Individual best = globalBest.get();
+		while ((best == null || individual.getFitness() > best.getFitness())
+				&& !globalBest.compareAndSet(best, individual)) {
+			best = globalBest.get();
+		}
+		if (problem.getOptimalValue() > 0 && individual.getFitness() >= problem.getOptimalValue()) {
+			targetReached = true;
+		}
+		return targetReached;
+	}
+
+	// Virtual threads when available (Java 21+), one platform thread per task otherwise
+	private static ExecutorService newThreadPerTaskExecutor(int tasks) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(tasks);
+		}
+	}
+
+	public Individual getBestSolution() {
+		return globalBest.get();
+	}
+
+	public MetricsCollector getMetricsCollector() {
+		return metricsCollector;
+	}
+
+	/**
+	 * One racing configuration. Its stopping criterion lets the algorithm run
+	 * until it has used the evaluations granted so far, then parks it until
+	 * more are granted or it is cancelled. The criterion built from the
+	 * parameters is checked too, and a member that stopped on its own arrives
+	 * at every later round as soon as it is granted its share.
+	 */
+	private class Member implements StoppingCriterion {
+		private final EvolutionaryAlgorithm algorithm;
+		private final StoppingCriterion criterion;
+		private final DeadlineCriterion deadline = new DeadlineCriterion(EvolutionaryAlgorithm.STOPPING_LIMIT_TIME);
+		private volatile long allowance;
+		private volatile boolean cancelled;
+		private boolean finished;
+		private int rounds;
+
+		Member(EvolutionaryAlgorithm algorithm) {
+			this.algorithm = algorithm;
+			this.criterion = algorithm.getStoppingCriterion();
+			algorithm.setStoppingCriterion(this);
+		}
+
+		@Override
+		public boolean isSatisfied(EvolutionaryAlgorithm evolutionaryAlgorithm) {
+			Individual best = evolutionaryAlgorithm.getBestSolution();
+			if ((best != null && offerBest(best)) || cancelled || criterion.isSatisfied(evolutionaryAlgorithm)) {
+				return true;
+			}
+			if (maxFunctionEvaluations < 0) {
+				return deadline.isSatisfied(evolutionaryAlgorithm);
+			}
+			if (evolutionaryAlgorithm.getFunctionEvaluations() < allowance) {
+				return false;
+			}
+			synchronized (this) {
+				arrivals.release();
+				while (!cancelled && !targetReached && evolutionaryAlgorithm.getFunctionEvaluations() >= allowance) {
+					try {
+						wait(POLL_INTERVAL);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return true;
+					}
+				}
+			}
+			return cancelled || targetReached;
+		}
+
+		synchronized void grant(long evaluations) {
+			allowance += evaluations;
+			if (finished) {
+				arrivals.release();
+			}
+			notifyAll();
+		}
+
+		// Arrive at the current round, which the member had not reached, and at the later ones when granted
+		synchronized void finish() {
+			finished = true;
+			if (!cancelled) {
+				arrivals.release();
+			}
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			notifyAll();
+		}
+
+		double bestFitness() {
+			Individual best = algorithm.getBestSolution();
+			return best == null ? Double.NEGATIVE_INFINITY : best.getFitness();
+		}
+	}
+}
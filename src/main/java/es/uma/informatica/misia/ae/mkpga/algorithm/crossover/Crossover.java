@@ -6,4 +6,12 @@ public interface Crossover {
 	public static final String CROSSOVER_PROBABILITY_PARAM = "crossoverProbability";
 
 	Individual apply(Individual parent1, Individual parent2);
+
+	/**
+	 * Writes the child of the parents into a caller-provided individual instead
+	 * of allocating a new one. The child must not be one of the parents.
+	 */
+	default void apply(Individual parent1, Individual parent2, Individual child) {
+		child.copyFrom(apply(parent1, parent2));
+	}
 }
\ No newline at end of file
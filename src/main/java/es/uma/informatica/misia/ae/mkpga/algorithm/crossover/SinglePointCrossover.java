@@ -25,11 +25,21 @@ public class SinglePointCrossover implements Crossover {
 		BinaryString binaryParent2 = (BinaryString) individual2;
 
 		BinaryString child = new BinaryString(binaryParent1);
-		int cutPoint = rnd.nextInt(binaryParent1.getChromosome().length + 1);
+		int cutPoint = rnd.nextInt(binaryParent1.getLength() + 1);
 
-		for (int i = cutPoint; i < binaryParent1.getChromosome().length; i++) {
-			child.getChromosome()[i] = binaryParent2.getChromosome()[i];
-		}
+		child.copyRange(binaryParent2, cutPoint, binaryParent1.getLength());
 		return child;
 	}
+
+	@Override
+	public void apply(Individual individual1, Individual individual2, Individual child) {
+		child.copyFrom(individual1);
+		if (rnd.nextDouble() < crossoverProbability) {
+			return;
+		}
+
+		BinaryString binaryChild = (BinaryString) child;
+		int cutPoint = rnd.nextInt(binaryChild.getLength() + 1);
+		binaryChild.copyRange((BinaryString) individual2, cutPoint, binaryChild.getLength());
+	}
 }
\ No newline at end of file
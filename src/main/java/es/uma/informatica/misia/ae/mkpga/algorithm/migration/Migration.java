@@ -0,0 +1,18 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.migration;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+
+/**
+ * Interface representing the exchange of individuals between the islands of
+ * an island model.
+ * 
+ * The algorithm calls it once per iteration, after replacement, so
+ * implementations decide when to send emigrants and receive immigrants.
+ */
+public interface Migration {
+	public static final String MIGRATION_INTERVAL_PARAM = "migrationInterval";
+	public static final String MIGRANTS_PARAM = "migrants";
+	public static final String MIGRATION_TOPOLOGY_PARAM = "migrationTopology";
+
+	void migrate(EvolutionaryAlgorithm island);
+}
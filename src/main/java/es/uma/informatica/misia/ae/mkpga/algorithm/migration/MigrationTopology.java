@@ -0,0 +1,37 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.migration;
+
+import java.util.Random;
+
+/**
+ * Destinations of the emigrants of an island. The topology is selected with
+ * the ordinal of the constant in the migrationTopology parameter.
+ */
+public enum MigrationTopology {
+	// Each island sends to the next one
+	RING,
+	// Each island sends to every other island
+	FULLY_CONNECTED,
+	// Each island sends to another island chosen at random on every migration
+	RANDOM;
+
+	public int[] destinations(int island, int islands, Random rnd) {
+		if (islands < 2) {
+			return new int[0];
+		}
+		switch (this) {
+		case RING:
+			return new int[] { (island + 1) % islands };
+		case FULLY_CONNECTED:
+			int[] destinations = new int[islands - 1];
+			for (int i = 0, j = 0; i < islands; i++) {
+				if (i != island) {
+					destinations[j++] = i;
+				}
+			}
+			return destinations;
+		default:
+			int destination = rnd.nextInt(islands - 1);
+			return new int[] { destination >= island ? destination + 1 : destination };
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.migration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Migration through bounded per-island inboxes. Every migration interval the
+ * island offers copies of its best individuals to the inboxes of its
+ * destinations, and on every iteration it drains its own inbox into its
+ * population. Offers to a full inbox are dropped, so islands never wait for
+ * each other.
+ */
+public class QueueMigration implements Migration {
+
+	private final int island;
+	private final List<Queue<Individual>> inboxes;
+	private final MigrationTopology topology;
+	private final int interval;
+	private final int migrants;
+	private final Random rnd;
+
+	private int nextMigration;
+	private final List<Individual> immigrants = new ArrayList<>();
+
+	public QueueMigration(int island, List<Queue<Individual>> inboxes, MigrationTopology topology, int interval,
+			int migrants, Random rnd) {
+		this.island = island;
+		this.inboxes = inboxes;
+		this.topology = topology;
+		this.interval = interval;
+		this.migrants = migrants;
+		this.rnd = rnd;
+		this.nextMigration = interval;
+	}
+
+	@Override
+	public void migrate(EvolutionaryAlgorithm algorithm) {
+		Queue<Individual> inbox = inboxes.get(island);
+		Individual immigrant;
+		while ((immigrant = inbox.poll()) != null) {
+			immigrants.add(immigrant);
+		}
+		if (!immigrants.isEmpty()) {
+			algorithm.receiveImmigrants(immigrants);
+			immigrants.clear();
+		}
+
+		if (algorithm.getFunctionEvaluations() >= nextMigration) {
+			nextMigration = algorithm.getFunctionEvaluations() + interval;
+			List<Individual> emigrants = selectEmigrants(algorithm.getPopulation());
+			for (int destination : topology.destinations(island, inboxes.size(), rnd)) {
+				for (Individual emigrant : emigrants) {
+					inboxes.get(destination).offer(emigrant.copy());
+				}
+			}
+		}
+	}
+
+	private List<Individual> selectEmigrants(List<Individual> population) {
+		List<Individual> sorted = new ArrayList<>(population);
+		sorted.sort(Comparator.comparing(Individual::getFitness).reversed());
+		return sorted.subList(0, Math.min(migrants, sorted.size()));
+	}
+}
@@ -19,15 +19,24 @@ public class BitFlipMutation implements Mutation {
 	public Individual apply(Individual individual) {
 		BinaryString original = (BinaryString) individual;
 		BinaryString mutated = new BinaryString(original);
-		for (int i = 0; i < mutated.getChromosome().length; i++) {
+		for (int i = 0; i < mutated.getLength(); i++) {
 			if (rnd.nextDouble() < probability) {
-				byte value = mutated.getChromosome()[i];
-				mutated.getChromosome()[i] = (byte) (1 - value);
+				mutated.flip(i);
 			}
 		}
 		return mutated;
 	}
 
+	@Override
+	public void applyInPlace(Individual individual) {
+		BinaryString binaryString = (BinaryString) individual;
+		for (int i = 0; i < binaryString.getLength(); i++) {
+			if (rnd.nextDouble() < probability) {
+				binaryString.flip(i);
+			}
+		}
+	}
+
 	public double getProbability() {
 		return probability;
 	}
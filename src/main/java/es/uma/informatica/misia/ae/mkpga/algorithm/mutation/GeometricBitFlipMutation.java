@@ -0,0 +1,70 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.mutation;
+
+import java.util.Random;
+
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Bit-flip mutation that draws the distance to the next flipped gene from a
+ * geometric distribution instead of a random number per gene. Each gene is
+ * still flipped independently with the given probability, but the cost is one
+ * random number per flip, so with small probabilities on long chromosomes it
+ * is much cheaper than {@link BitFlipMutation}. The genes flipped for a given
+ * seed are not the same as those of BitFlipMutation.
+ */
+public class GeometricBitFlipMutation implements Mutation {
+	public static final String GEOMETRIC_MUTATION_PARAM = "geometricMutation";
+
+	private double probability;
+	// log(1 - probability), the scale of the geometric distribution
+	private double logComplement;
+	private Random rnd;
+
+	public GeometricBitFlipMutation(Random rnd, double probability) {
+		this.rnd = rnd;
+		setProbability(probability);
+	}
+
+	@Override
+	public Individual apply(Individual individual) {
+		BinaryString mutated = new BinaryString((BinaryString) individual);
+		applyInPlace(mutated);
+		return mutated;
+	}
+
+	@Override
+	public void applyInPlace(Individual individual) {
+		BinaryString binaryString = (BinaryString) individual;
+		int length = binaryString.getLength();
+		if (probability <= 0) {
+			return;
+		}
+		if (probability >= 1) {
+			for (int i = 0; i < length; i++) {
+				binaryString.flip(i);
+			}
+			return;
+		}
+		int i = nextGap(length);
+		while (i < length) {
+			binaryString.flip(i);
+			i += 1 + nextGap(length - i - 1);
+		}
+	}
+
+	// Number of genes skipped before the next flip, capped at limit
+	private int nextGap(int limit) {
+		double gap = Math.floor(Math.log(1.0 - rnd.nextDouble()) / logComplement);
+		return gap < limit ? (int) gap : limit;
+	}
+
+	public double getProbability() {
+		return probability;
+	}
+
+	public void setProbability(double probability) {
+		this.probability = probability;
+		this.logComplement = Math.log1p(-probability);
+	}
+}
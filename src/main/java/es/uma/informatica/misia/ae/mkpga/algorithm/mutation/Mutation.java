@@ -6,4 +6,9 @@ public interface Mutation {
 	public static final String MUTATION_PROBABILITY_PARAMETER = "mutationProbability";
 
 	Individual apply(Individual original);
+
+	// Mutates the individual itself instead of a copy
+	default void applyInPlace(Individual individual) {
+		individual.copyFrom(apply(individual));
+	}
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.repair;
+
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * Repair operator for the multidimensional knapsack problem in the style of
+ * Chu and Beasley. Items are dropped in increasing pseudo-utility order until
+ * every constraint is satisfied, and then items that still fit are added in
+ * decreasing pseudo-utility order.
+ *
+ * The item order is precomputed by the problem. The constraint loads are
+ * computed once and then updated with each dropped or added item, and the
+ * genes are changed through {@link BinaryString#set}, so an incremental
+ * evaluation state stays consistent.
+ *
+ * Instances keep a load buffer and must not be shared between threads.
+ */
+public class GreedyRepair implements Repair {
+	private final MultidimensionalKnapsackProblem problem;
+	private final long[] loads;
+
+	public GreedyRepair(MultidimensionalKnapsackProblem problem) {
+		this.problem = problem;
+		this.loads = new long[problem.getLoadLength()];
+	}
+
+	@Override
+	public void repair(Individual individual) {
+		BinaryString binaryString = (BinaryString) individual;
+		int[] itemsByUtility = problem.getItemsByUtility();
+		problem.computeLoads(binaryString, loads);
+
+		// Drop phase, worst items first
+		for (int position = 0; position < itemsByUtility.length && !problem.isFeasible(loads); position++) {
+			int itemIndex = itemsByUtility[position];
+			if (binaryString.get(itemIndex)) {
+				binaryString.set(itemIndex, false);
+				problem.subtractWeights(itemIndex, loads);
+			}
+		}
+
+		// Add phase, best items first
+		for (int position = itemsByUtility.length - 1; position >= 0; position--) {
+			int itemIndex = itemsByUtility[position];
+			if (!binaryString.get(itemIndex) && problem.fits(itemIndex, loads)) {
+				binaryString.set(itemIndex, true);
+				problem.addWeights(itemIndex, loads);
+			}
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.repair;
+
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Interface representing an operator that turns an individual into a feasible
+ * solution. The algorithm applies it between mutation and evaluation.
+ */
+public interface Repair {
+	public static final String REPAIR_PARAM = "repair";
+
+	// Repairs the individual in place
+	void repair(Individual individual);
+}
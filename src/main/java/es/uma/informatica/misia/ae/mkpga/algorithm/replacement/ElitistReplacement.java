@@ -7,8 +7,26 @@ import java.util.stream.Collectors;
 
 import es.uma.informatica.misia.ae.mkpga.problem.Individual;
 
+/**
+ * Keeps the best individuals among the population and the offspring, with
+ * ties resolved in favour of the individuals already in the population.
+ *
+ * The in-place operations keep the population sorted by decreasing fitness.
+ * The population is sorted once, the first time it is seen, and from then on a
+ * single child is placed with a binary search and a batch of offspring is
+ * merged in one pass, without allocating on every step. The order of the
+ * population is the same as with the copying {@link #replacement} method.
+ */
 public class ElitistReplacement implements Replacement {
 
+	private static final Comparator<Individual> BY_DECREASING_FITNESS = Comparator
+			.comparingDouble(Individual::getFitness).reversed();
+
+	// Population known to be sorted, and scratch lists reused across calls
+	private List<Individual> sortedPopulation;
+	private final List<Individual> sortedOffspring = new ArrayList<>();
+	private final List<Individual> mergeBuffer = new ArrayList<>();
+
 	@Override
 	public List<Individual> replacement(List<Individual> population, List<Individual> offspring) {
 		int populationSize = population.size();
@@ -25,4 +43,71 @@ public class ElitistReplacement implements Replacement {
 		return nextPopulation;
 	}
 
+	@Override
+	public Individual replace(List<Individual> population, Individual child) {
+		ensureSorted(population);
+		int last = population.size() - 1;
+		if (last < 0 || child.getFitness() <= population.get(last).getFitness()) {
+			return child;
+		}
+		Individual worst = population.remove(last);
+		population.add(insertionPoint(population, child.getFitness()), child);
+		return worst;
+	}
+
+	@Override
+	public void replace(List<Individual> population, List<Individual> offspring, List<Individual> evicted) {
+		if (offspring.size() == 1) {
+			evicted.add(replace(population, offspring.get(0)));
+			return;
+		}
+		ensureSorted(population);
+		sortedOffspring.clear();
+		sortedOffspring.addAll(offspring);
+		sortedOffspring.sort(BY_DECREASING_FITNESS);
+
+		// Merge both sorted lists, keeping the population first on ties
+		int populationSize = population.size();
+		int i = 0;
+		int j = 0;
+		mergeBuffer.clear();
+		while (mergeBuffer.size() < populationSize) {
+			if (j == sortedOffspring.size() || population.get(i).getFitness() >= sortedOffspring.get(j).getFitness()) {
+				mergeBuffer.add(population.get(i++));
+			} else {
+				mergeBuffer.add(sortedOffspring.get(j++));
+			}
+		}
+		evicted.addAll(population.subList(i, populationSize));
+		evicted.addAll(sortedOffspring.subList(j, sortedOffspring.size()));
+
+		for (int k = 0; k < populationSize; k++) {
+			population.set(k, mergeBuffer.get(k));
+		}
+		mergeBuffer.clear();
+		sortedOffspring.clear();
+	}
+
+	private void ensureSorted(List<Individual> population) {
+		if (population != sortedPopulation) {
+			population.sort(BY_DECREASING_FITNESS);
+			sortedPopulation = population;
+		}
+	}
+
+	// Index of the first individual with a lower fitness
+	private static int insertionPoint(List<Individual> population, double fitness) {
+		int low = 0;
+		int high = population.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (population.get(middle).getFitness() >= fitness) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
 }
@@ -1,6 +1,10 @@
 package es.uma.informatica.misia.ae.mkpga.algorithm.replacement;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import es.uma.informatica.misia.ae.mkpga.problem.Individual;
 
@@ -8,4 +12,36 @@ public interface Replacement {
 
 	List<Individual> replacement(List<Individual> population, List<Individual> offspring);
 
-}
\ No newline at end of file
+	/**
+	 * Inserts a child into the population in place and returns the individual
+	 * that is left out, which is the child itself when it is rejected.
+	 */
+	default Individual replace(List<Individual> population, Individual child) {
+		List<Individual> evicted = new ArrayList<>(1);
+		replace(population, Collections.singletonList(child), evicted);
+		return evicted.isEmpty() ? null : evicted.get(0);
+	}
+
+	/**
+	 * Inserts the offspring into the population in place, adding the
+	 * individuals that are left out to evicted.
+	 */
+	default void replace(List<Individual> population, List<Individual> offspring, List<Individual> evicted) {
+		List<Individual> nextPopulation = replacement(population, offspring);
+		Set<Individual> survivors = Collections.newSetFromMap(new IdentityHashMap<>());
+		survivors.addAll(nextPopulation);
+		for (Individual individual : population) {
+			if (!survivors.contains(individual)) {
+				evicted.add(individual);
+			}
+		}
+		for (Individual individual : offspring) {
+			if (!survivors.contains(individual)) {
+				evicted.add(individual);
+			}
+		}
+		population.clear();
+		population.addAll(nextPopulation);
+	}
+
+}
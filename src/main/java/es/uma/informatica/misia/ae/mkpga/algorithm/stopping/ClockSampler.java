@@ -0,0 +1,41 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.stopping;
+
+import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+
+/**
+ * Reads the execution time of a run only once every stride calls, so a clock
+ * based criterion costs a counter decrement in the loop. The stride doubles
+ * while consecutive reads are less than half a sample period apart and halves
+ * while they are more than two periods apart, so the clock is read about
+ * every SAMPLE_PERIOD ms whatever the cost of an iteration.
+ *
+ * A sampler is not thread-safe. When several workers share it, the countdown
+ * may skip or repeat a read, which only changes when the clock is read.
+ */
+class ClockSampler {
+	static final long SAMPLE_PERIOD = 10;
+	private static final int MAX_STRIDE = 1 << 16;
+
+	private int stride = 1;
+	private int countdown;
+	private long lastTime = -1;
+
+	// Execution time in ms, or -1 when the clock is not read on this call
+	long sample(MetricsCollector metricsCollector) {
+		if (--countdown > 0) {
+			return -1;
+		}
+		long time = metricsCollector.getExecutionTime();
+		if (lastTime >= 0) {
+			long elapsed = time - lastTime;
+			if (elapsed * 2 < SAMPLE_PERIOD && stride < MAX_STRIDE) {
+				stride <<= 1;
+			} else if (elapsed > 2 * SAMPLE_PERIOD && stride > 1) {
+				stride >>= 1;
+			}
+		}
+		lastTime = time;
+		countdown = stride;
+		return time;
+	}
+}
@@ -0,0 +1,32 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.stopping;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+
+/**
+ * A stopping criterion that stops when the run has lasted a time limit in ms.
+ * The clock is read through a {@link ClockSampler}, so the run may last up to
+ * about {@link ClockSampler#SAMPLE_PERIOD} ms longer. The execution time
+ * includes the time before a resumed checkpoint.
+ */
+public class DeadlineCriterion implements StoppingCriterion {
+	public static final String TIME_LIMIT_PARAM = "timeLimit";
+
+	private final long timeLimit;
+	private final ClockSampler clock = new ClockSampler();
+	private volatile boolean satisfied;
+
+	public DeadlineCriterion(long timeLimit) {
+		if (timeLimit <= 0) {
+			throw new IllegalArgumentException(TIME_LIMIT_PARAM + " must be positive, not " + timeLimit);
+		}
+		this.timeLimit = timeLimit;
+	}
+
+	@Override
+	public boolean isSatisfied(EvolutionaryAlgorithm algorithm) {
+		if (!satisfied && clock.sample(algorithm.getMetricsCollector()) >= timeLimit) {
+			satisfied = true;
+		}
+		return satisfied;
+	}
+}
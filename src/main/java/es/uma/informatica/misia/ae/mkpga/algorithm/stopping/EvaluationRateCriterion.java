@@ -0,0 +1,62 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.stopping;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+
+/**
+ * A stopping criterion that stops when the number of function evaluations per
+ * second over a window of time falls below a floor, such as when a converged
+ * population only produces cached or rejected children. The first window
+ * starts with the first check, also after a resumed checkpoint, and the clock
+ * is read through a {@link ClockSampler}.
+ *
+ * Workers of the parallel modes share the criterion. The window is only
+ * updated when the clock is read, under a lock, so a rate is never computed
+ * from the start time of one window and the evaluations of another.
+ */
+public class EvaluationRateCriterion implements StoppingCriterion {
+	public static final String MIN_EVALUATION_RATE_PARAM = "minEvaluationRate";
+	public static final String RATE_WINDOW_PARAM = "evaluationRateWindow";
+	public static final long DEFAULT_RATE_WINDOW = 1000;
+
+	private final double minEvaluationRate;
+	private final long window;
+	private final ClockSampler clock = new ClockSampler();
+	private long windowStartTime = -1;
+	private int windowStartEvaluations;
+	private volatile boolean satisfied;
+
+	public EvaluationRateCriterion(double minEvaluationRate, long window) {
+		if (window <= 0) {
+			throw new IllegalArgumentException(RATE_WINDOW_PARAM + " must be positive, not " + window);
+		}
+		this.minEvaluationRate = minEvaluationRate;
+		this.window = window;
+	}
+
+	@Override
+	public boolean isSatisfied(EvolutionaryAlgorithm algorithm) {
+		if (satisfied) {
+			return true;
+		}
+		long time = clock.sample(algorithm.getMetricsCollector());
+		if (time < 0) {
+			return false;
+		}
+		return updateWindow(time, algorithm);
+	}
+
+	// The evaluations are read under the lock, so they never decrease from one window to the next
+	private synchronized boolean updateWindow(long time, EvolutionaryAlgorithm algorithm) {
+		int evaluations = algorithm.getFunctionEvaluations();
+		if (windowStartTime < 0) {
+			windowStartTime = time;
+			windowStartEvaluations = evaluations;
+		} else if (time - windowStartTime >= window) {
+			double rate = (evaluations - windowStartEvaluations) * 1000.0 / (time - windowStartTime);
+			satisfied = rate < minEvaluationRate;
+			windowStartTime = time;
+			windowStartEvaluations = evaluations;
+		}
+		return satisfied;
+	}
+}
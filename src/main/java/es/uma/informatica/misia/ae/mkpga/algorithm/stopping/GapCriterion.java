@@ -0,0 +1,33 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.stopping;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * A stopping criterion that stops when the relative gap between the best
+ * fitness and a target value, (target - best) / target, is at most a given
+ * gap. The target is the optimal value of the instance or an upper bound of
+ * it, so a gap of 0.01 stops within 1% of the optimum or of the bound.
+ */
+public class GapCriterion implements StoppingCriterion {
+	public static final String TARGET_GAP_PARAM = "targetGap";
+	public static final String BOUND_PARAM = "bound";
+
+	private final double threshold;
+
+	public GapCriterion(double target, double gap) {
+		if (!(gap >= 0 && gap < 1)) {
+			throw new IllegalArgumentException(TARGET_GAP_PARAM + " must be in [0, 1), not " + gap);
+		}
+		if (target <= 0) {
+			throw new IllegalArgumentException("The gap needs a positive target value, not " + target);
+		}
+		this.threshold = target * (1 - gap);
+	}
+
+	@Override
+	public boolean isSatisfied(EvolutionaryAlgorithm algorithm) {
+		Individual bestSolution = algorithm.getBestSolution();
+		return bestSolution != null && bestSolution.getFitness() >= threshold;
+	}
+}
@@ -5,21 +5,20 @@ import es.uma.informatica.misia.ae.mkpga.problem.Individual;
 
 /**
  * A stopping criterion that stops when the algorithm has found an optimal
- * solution.
+ * solution, or after a time limit checked as in {@link DeadlineCriterion}.
  */
 public class OptimalSolutionCriterion implements StoppingCriterion {
 	private final double optimalValue;
-	private final long timeLimit;
+	private final DeadlineCriterion deadline;
 
 	public OptimalSolutionCriterion(double optimalValue, long timeLimit) {
 		this.optimalValue = optimalValue;
-		this.timeLimit = timeLimit;
+		this.deadline = new DeadlineCriterion(timeLimit);
 	}
 
 	@Override
 	public boolean isSatisfied(EvolutionaryAlgorithm algorithm) {
 		Individual bestSolution = algorithm.getBestSolution();
-		long executionTime = algorithm.getMetricsCollector().getExecutionTime();
-		return bestSolution != null && bestSolution.getFitness() >= optimalValue || executionTime >= timeLimit;
+		return bestSolution != null && bestSolution.getFitness() >= optimalValue || deadline.isSatisfied(algorithm);
 	}
 }
@@ -0,0 +1,26 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.stopping;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+
+/**
+ * A stopping criterion that stops when any of its criteria is satisfied. The
+ * criteria are checked in order and the check ends at the first one that is
+ * satisfied, so cheap criteria should come first.
+ */
+public class OrCriterion implements StoppingCriterion {
+	private final StoppingCriterion[] criteria;
+
+	public OrCriterion(StoppingCriterion... criteria) {
+		this.criteria = criteria.clone();
+	}
+
+	@Override
+	public boolean isSatisfied(EvolutionaryAlgorithm algorithm) {
+		for (StoppingCriterion criterion : criteria) {
+			if (criterion.isSatisfied(algorithm)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,26 @@
+package es.uma.informatica.misia.ae.mkpga.algorithm.stopping;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+
+/**
+ * A stopping criterion that stops when the best solution has not improved in
+ * a number of function evaluations. The evaluation of the last improvement is
+ * kept by the algorithm, and saved with its checkpoints.
+ */
+public class StagnationCriterion implements StoppingCriterion {
+	public static final String STAGNATION_PARAM = "stagnationEvaluations";
+
+	private final int evaluations;
+
+	public StagnationCriterion(int evaluations) {
+		if (evaluations <= 0) {
+			throw new IllegalArgumentException(STAGNATION_PARAM + " must be positive, not " + evaluations);
+		}
+		this.evaluations = evaluations;
+	}
+
+	@Override
+	public boolean isSatisfied(EvolutionaryAlgorithm algorithm) {
+		return algorithm.getFunctionEvaluations() - algorithm.getLastImprovementEvaluations() >= evaluations;
+	}
+}
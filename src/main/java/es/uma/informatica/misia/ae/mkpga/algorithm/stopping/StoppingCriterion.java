@@ -6,8 +6,21 @@ import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
  * Interface representing a stopping criterion for an evolutionary algorithm.
  * 
  * Implementations of this interface define the condition under which the
- * evolutionary algorithm should terminate.
+ * evolutionary algorithm should terminate. Criteria are combined with
+ * {@link #and} and {@link #or}, and with the all criteria parameter the
+ * optional criteria chosen from the parameters must all be satisfied instead
+ * of any of them.
  */
 public interface StoppingCriterion {
+	public static final String ALL_CRITERIA_PARAM = "allCriteria";
+
 	boolean isSatisfied(EvolutionaryAlgorithm evolutionaryAlgorithm);
+
+	default StoppingCriterion and(StoppingCriterion other) {
+		return new AndCriterion(this, other);
+	}
+
+	default StoppingCriterion or(StoppingCriterion other) {
+		return new OrCriterion(this, other);
+	}
 }
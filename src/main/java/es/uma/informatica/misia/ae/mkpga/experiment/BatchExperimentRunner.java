@@ -0,0 +1,362 @@
+package es.uma.informatica.misia.ae.mkpga.experiment;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.Crossover;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.Mutation;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+import es.uma.informatica.misia.ae.mkpga.util.ArrowStreamWriter;
+import es.uma.informatica.misia.ae.mkpga.util.ArrowStreamWriter.ColumnType;
+import es.uma.informatica.misia.ae.mkpga.util.ConvergenceTrace;
+import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+import es.uma.informatica.misia.ae.mkpga.util.MultidimensionalKnapsackProblemLoader;
+import es.uma.informatica.misia.ae.mkpga.util.TraceWriter;
+
+/**
+ * The BatchExperimentRunner class runs a whole grid of experiments inside one
+ * JVM. The problem instances are loaded once and the runs are executed on a
+ * pool of worker threads, so the timings reflect JIT-compiled code instead of
+ * JVM startup.
+ * 
+ * The grid is read from a properties file and/or <name>=<value> arguments,
+ * arguments taking precedence. Lists are comma separated:
+ * 
+ * - problems: problem indexes in the instances file (default 0-6).
+ * - functionEvaluations: function evaluation budgets (default 1000).
+ * - crossoverProbabilities, mutationProbabilities: operator probabilities.
+ * - executions: number of runs per configuration, run i uses seed i (default
+ * 31).
+ * - populationSize: population size (default 10).
+ * - resultsDir: output directory (default results/experiment_all).
+ * - workers: worker threads (default number of available processors). The
+ * threads parameter is passed to the algorithm like any other.
+ * - traces: when true, each run streams its convergence trace to
+ * trace_<i>.csv next to its results file (default false).
+ * - checkpoints: when true, each run checkpoints to results_<i>.checkpoint
+ * next to its results file, so an interrupted batch resumes its unfinished
+ * runs where they were instead of from the start (default false).
+ * - format: json (default) or arrow, see below.
+ * 
+ * Any other numeric property is passed to the algorithm as a parameter.
+ * 
+ * Each run writes the same JSON file as a single execution of Main, under
+ * <resultsDir>/function_evaluations_<fe>/problem_<p>/crossover_<c>/mutation_<m>/results_<i>.json,
+ * and runs whose file already exists are skipped. Values are used verbatim in
+ * the paths, so they must be written as the analysis scripts expect them.
+ * 
+ * With format=arrow the runs are instead appended as rows of
+ * <resultsDir>/results.arrow, an Arrow IPC stream written in batches of
+ * ARROW_BATCH_ROWS rows, with the columns of the flattened JSON files used by
+ * the analysis scripts and the trace as two list columns. The whole grid is
+ * run again and the file replaced. Streaming the traces to CSV files is not
+ * available in this format.
+ */
+public class BatchExperimentRunner {
+	public static final String PROBLEMS = "problems";
+	public static final String FUNCTION_EVALUATIONS = "functionEvaluations";
+	public static final String CROSSOVER_PROBABILITIES = "crossoverProbabilities";
+	public static final String MUTATION_PROBABILITIES = "mutationProbabilities";
+	public static final String EXECUTIONS = "executions";
+	public static final String POPULATION_SIZE = "populationSize";
+	public static final String RESULTS_DIR = "resultsDir";
+	public static final String WORKERS = "workers";
+	public static final String TRACES = "traces";
+	public static final String CHECKPOINTS = "checkpoints";
+	public static final String FORMAT = "format";
+	public static final String ARROW_FILE_NAME = "results.arrow";
+	public static final int ARROW_BATCH_ROWS = 256;
+
+	private static final String[] ARROW_COLUMN_NAMES = { "problemIndex", "execution", "functionEvaluations",
+			"populationSize", "crossoverProbability", "mutationProbability", "bestIndividual.fitness",
+			"problem.optimalValue", "executionTime", "numberOfEvaluations", "numberOfGenerations",
+			"generationBestIndividuals.generationNumber", "generationBestIndividuals.bestIndividualFitness" };
+	private static final ColumnType[] ARROW_COLUMN_TYPES = { ColumnType.INT32, ColumnType.INT32, ColumnType.INT32,
+			ColumnType.INT32, ColumnType.FLOAT64, ColumnType.FLOAT64, ColumnType.FLOAT64, ColumnType.FLOAT64,
+			ColumnType.INT64, ColumnType.INT32, ColumnType.INT32, ColumnType.INT32_LIST, ColumnType.FLOAT64_LIST };
+
+	private final Properties grid;
+	private final List<MultidimensionalKnapsackProblem> problems;
+
+	public BatchExperimentRunner(Properties grid, List<MultidimensionalKnapsackProblem> problems) {
+		this.grid = grid;
+		this.problems = problems;
+	}
+
+	/**
+	 * Reads the grid from the arguments: an optional properties file followed
+	 * by <name>=<value> overrides.
+	 */
+	public static Properties readGrid(String[] args) throws IOException {
+		Properties grid = new Properties();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				try (Reader reader = new FileReader(arg)) {
+					grid.load(reader);
+				}
+			}
+		}
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (separator >= 0) {
+				grid.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+			}
+		}
+		return grid;
+	}
+
+	// Run the grid, returns the number of failed runs
+	public int run() throws IOException, InterruptedException {
+		boolean arrow = "arrow".equals(grid.getProperty(FORMAT, "json"));
+		if (arrow && isEnabled(TRACES)) {
+			// A streamed trace leaves nothing in memory for the list columns
+			throw new IllegalArgumentException("traces=true cannot be combined with format=arrow, "
+					+ "the Arrow stream already holds the convergence traces");
+		}
+		List<ExperimentRun> runs = pendingRuns(arrow);
+		int workers = Integer.parseInt(
+				grid.getProperty(WORKERS, String.valueOf(Runtime.getRuntime().availableProcessors())));
+		System.out.printf("Running %d experiments on %d workers%n", runs.size(), workers);
+
+		ArrowStreamWriter arrowWriter = null;
+		if (arrow) {
+			File resultsDir = new File(grid.getProperty(RESULTS_DIR, "results/experiment_all"));
+			resultsDir.mkdirs();
+			arrowWriter = new ArrowStreamWriter(new File(resultsDir, ARROW_FILE_NAME).getPath(),
+					ARROW_COLUMN_NAMES, ARROW_COLUMN_TYPES);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		int failures = 0;
+		try {
+			CompletionService<ExperimentRun> completionService = new ExecutorCompletionService<>(executor);
+			for (ExperimentRun run : runs) {
+				completionService.submit(() -> {
+					run.execute();
+					return run;
+				});
+			}
+			// Report results in completion order
+			for (int completed = 1; completed <= runs.size(); completed++) {
+				try {
+					ExperimentRun run = completionService.take().get();
+					if (arrowWriter != null) {
+						run.appendRow(arrowWriter);
+						if (arrowWriter.getRows() == ARROW_BATCH_ROWS) {
+							arrowWriter.writeBatch();
+						}
+					}
+					System.out.printf("[%d/%d] %s: %s, Execution Time: %d ms%n", completed, runs.size(),
+							run.name(), run.bestSolution.getFitness(), run.executionTime);
+				} catch (ExecutionException e) {
+					failures++;
+					System.err.printf("[%d/%d] Experiment failed: %s%n", completed, runs.size(), e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			if (arrowWriter != null) {
+				arrowWriter.close();
+			}
+		}
+		return failures;
+	}
+
+	// Grid combinations without an existing results file, all of them when writing Arrow
+	private List<ExperimentRun> pendingRuns(boolean arrow) {
+		String resultsDir = grid.getProperty(RESULTS_DIR, "results/experiment_all");
+		String populationSize = grid.getProperty(POPULATION_SIZE, "10");
+		int executions = Integer.parseInt(grid.getProperty(EXECUTIONS, "31"));
+		Map<String, Double> extraParameters = extraParameters();
+		boolean traces = isEnabled(TRACES);
+		boolean checkpoints = isEnabled(CHECKPOINTS);
+
+		List<ExperimentRun> runs = new ArrayList<>();
+		for (String functionEvaluations : list(FUNCTION_EVALUATIONS, "1000")) {
+			for (String problemIndex : list(PROBLEMS, "0,1,2,3,4,5,6")) {
+				for (String crossoverProbability : list(CROSSOVER_PROBABILITIES, "0.1,0.3,0.5,0.7,0.9,1")) {
+					for (String mutationProbability : list(MUTATION_PROBABILITIES, "0.01,0.05,0.1,0.2,0.3,0.5")) {
+						File directory = new File(resultsDir, "function_evaluations_" + functionEvaluations
+								+ "/problem_" + problemIndex + "/crossover_" + crossoverProbability + "/mutation_"
+								+ mutationProbability);
+						for (int execution = 0; execution < executions; execution++) {
+							File resultsFile = new File(directory, "results_" + execution + ".json");
+							if (!arrow && resultsFile.exists()) {
+								continue;
+							}
+							Map<String, Double> parameters = new HashMap<>(extraParameters);
+							parameters.put(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM,
+									Double.parseDouble(populationSize));
+							parameters.put(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM,
+									Double.parseDouble(functionEvaluations));
+							parameters.put(Crossover.CROSSOVER_PROBABILITY_PARAM,
+									Double.parseDouble(crossoverProbability));
+							parameters.put(Mutation.MUTATION_PROBABILITY_PARAMETER,
+									Double.parseDouble(mutationProbability));
+							parameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) execution);
+							File traceFile = traces ? new File(directory, "trace_" + execution + ".csv") : null;
+							File checkpointFile = checkpoints
+									? new File(directory, "results_" + execution + ".checkpoint")
+									: null;
+							runs.add(new ExperimentRun(Integer.parseInt(problemIndex),
+									problems.get(Integer.parseInt(problemIndex)), parameters, execution, resultsFile,
+									traceFile, checkpointFile, !arrow));
+						}
+					}
+				}
+			}
+		}
+		return runs;
+	}
+
+	// Boolean grid keys accept true or 1
+	private boolean isEnabled(String key) {
+		return Boolean.parseBoolean(grid.getProperty(key, "false")) || "1".equals(grid.getProperty(key));
+	}
+
+	private String[] list(String key, String defaultValue) {
+		return grid.getProperty(key, defaultValue).trim().split("\\s*,\\s*");
+	}
+
+	// Numeric properties outside the grid keys are algorithm parameters
+	private Map<String, Double> extraParameters() {
+		Map<String, Double> parameters = new HashMap<>();
+		for (String key : grid.stringPropertyNames()) {
+			switch (key) {
+			case PROBLEMS:
+			case FUNCTION_EVALUATIONS:
+			case CROSSOVER_PROBABILITIES:
+			case MUTATION_PROBABILITIES:
+			case EXECUTIONS:
+			case POPULATION_SIZE:
+			case RESULTS_DIR:
+			case WORKERS:
+			case TRACES:
+			case CHECKPOINTS:
+			case FORMAT:
+				break;
+			default:
+				parameters.put(key, Double.parseDouble(grid.getProperty(key)));
+			}
+		}
+		return parameters;
+	}
+
+	private static class ExperimentRun {
+		private final int problemIndex;
+		private final MultidimensionalKnapsackProblem problem;
+		private final Map<String, Double> parameters;
+		private final int execution;
+		private final File resultsFile;
+		private final File traceFile;
+		private final File checkpointFile;
+		private final boolean json;
+		private Individual bestSolution;
+		private long executionTime;
+		// Kept until the Arrow row is appended
+		private MetricsCollector metricsCollector;
+
+		ExperimentRun(int problemIndex, MultidimensionalKnapsackProblem problem, Map<String, Double> parameters,
+				int execution, File resultsFile, File traceFile, File checkpointFile, boolean json) {
+			this.problemIndex = problemIndex;
+			this.problem = problem;
+			this.parameters = parameters;
+			this.execution = execution;
+			this.resultsFile = resultsFile;
+			this.traceFile = traceFile;
+			this.checkpointFile = checkpointFile;
+			this.json = json;
+		}
+
+		void execute() throws IOException {
+			EvolutionaryAlgorithm evolutionaryAlgorithm = new EvolutionaryAlgorithm(parameters, problem);
+			MetricsCollector metricsCollector = evolutionaryAlgorithm.getMetricsCollector();
+			resultsFile.getParentFile().mkdirs();
+			if (checkpointFile != null) {
+				evolutionaryAlgorithm.setCheckpointFile(checkpointFile.getPath());
+			}
+			if (traceFile == null) {
+				bestSolution = evolutionaryAlgorithm.run();
+			} else {
+				try (TraceWriter traceWriter = new TraceWriter(traceFile.getPath())) {
+					metricsCollector.setTraceWriter(traceWriter);
+					bestSolution = evolutionaryAlgorithm.run();
+				}
+			}
+			executionTime = metricsCollector.getExecutionTime();
+			if (!json) {
+				this.metricsCollector = metricsCollector;
+				return;
+			}
+
+			// Write then rename, so an interrupted batch never leaves a partial file to skip
+			File temporaryFile = new File(resultsFile.getPath() + ".tmp");
+			try {
+				metricsCollector.writeMetricsToJson(temporaryFile.getPath());
+			} catch (IOException e) {
+				Files.deleteIfExists(temporaryFile.toPath());
+				throw e;
+			}
+			Files.move(temporaryFile.toPath(), resultsFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		// Results file, or configuration and execution when the results go to the Arrow stream
+		String name() {
+			return json ? resultsFile.getPath() : resultsFile.getParent() + " execution " + execution;
+		}
+
+		// Columns in the order of ARROW_COLUMN_NAMES
+		void appendRow(ArrowStreamWriter writer) {
+			writer.appendInt(0, problemIndex);
+			writer.appendInt(1, execution);
+			writer.appendInt(2, parameters.get(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM).intValue());
+			writer.appendInt(3, parameters.get(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM).intValue());
+			writer.appendDouble(4, parameters.get(Crossover.CROSSOVER_PROBABILITY_PARAM));
+			writer.appendDouble(5, parameters.get(Mutation.MUTATION_PROBABILITY_PARAMETER));
+			writer.appendDouble(6, bestSolution.getFitness());
+			writer.appendDouble(7, problem.getOptimalValue());
+			writer.appendLong(8, executionTime);
+			writer.appendInt(9, metricsCollector.getNumberOfEvaluations());
+			writer.appendInt(10, metricsCollector.getNumberOfGenerations());
+			ConvergenceTrace trace = metricsCollector.getConvergenceTrace();
+			for (int i = 0; trace != null && i < trace.size(); i++) {
+				writer.appendInt(11, trace.getGenerationNumber(i));
+				writer.appendDouble(12, trace.getFitness(i));
+			}
+			writer.endRow();
+			metricsCollector = null;
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String problemFilePath = System.getenv("MKP_FILE_PATH");
+		if (problemFilePath == null) {
+			System.err.println("MKP_FILE_PATH environment variable not set");
+			return;
+		}
+		Properties grid = readGrid(args);
+		List<MultidimensionalKnapsackProblem> problems = MultidimensionalKnapsackProblemLoader
+				.loadInstances(problemFilePath);
+		int failures = new BatchExperimentRunner(grid, problems).run();
+		if (failures > 0) {
+			System.err.printf("%d experiments failed%n", failures);
+			System.exit(1);
+		}
+	}
+}
@@ -3,36 +3,212 @@ package es.uma.informatica.misia.ae.mkpga.problem;
 import java.util.Arrays;
 import java.util.Random;
 
+import es.uma.informatica.misia.ae.mkpga.util.RestorableRandom;
+
+/**
+ * Binary chromosome packed into a long[] bitset, 64 genes per word. Bit i of
+ * the chromosome is stored in bit (i % 64) of word (i / 64). Unused bits of the
+ * last word are always zero, so equality and hashing can work on whole words.
+ *
+ * When the individual carries an {@link EvaluationState}, every gene change is
+ * recorded in its journal so the child can be evaluated incrementally.
+ */
 public class BinaryString extends Individual {
-	private byte[] chromosome;
+	private static final int WORD_SIZE = Long.SIZE;
+	private static final long WORD_MASK = -1L;
+
+	private long[] words;
+	private int length;
 
 	public BinaryString(BinaryString individual) {
-		chromosome = individual.chromosome.clone();
+		words = individual.words.clone();
+		length = individual.length;
 		fitness = individual.fitness;
+		if (individual.evaluationState != null) {
+			evaluationState = new EvaluationState(individual.evaluationState);
+		}
 	}
 
 	public BinaryString(int n) {
-		chromosome = new byte[n];
+		words = new long[wordCount(n)];
+		length = n;
 	}
 
+	// Random genes, filled a word at a time by a RestorableRandom
 	public BinaryString(int n, Random rnd) {
 		this(n);
+		if (rnd instanceof RestorableRandom) {
+			((RestorableRandom) rnd).nextBits(words, n);
+			return;
+		}
 		for (int i = 0; i < n; i++) {
-			chromosome[i] = (byte) rnd.nextInt(2);
+			if (rnd.nextInt(2) == 1) {
+				words[i >>> 6] |= 1L << i;
+			}
+		}
+	}
+
+	@Override
+	public BinaryString copy() {
+		return new BinaryString(this);
+	}
+
+	@Override
+	public void copyFrom(Individual source) {
+		BinaryString binarySource = (BinaryString) source;
+		if (words.length != binarySource.words.length) {
+			words = new long[binarySource.words.length];
+		}
+		System.arraycopy(binarySource.words, 0, words, 0, words.length);
+		length = binarySource.length;
+		fitness = binarySource.fitness;
+		if (binarySource.evaluationState == null) {
+			evaluationState = null;
+		} else if (evaluationState == null) {
+			evaluationState = new EvaluationState(binarySource.evaluationState);
+		} else {
+			evaluationState.copyFrom(binarySource.evaluationState);
+		}
+	}
+
+	public static int wordCount(int n) {
+		return (n + WORD_SIZE - 1) / WORD_SIZE;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public long[] getWords() {
+		return words;
+	}
+
+	public boolean get(int index) {
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	public void set(int index, boolean value) {
+		if (evaluationState != null && get(index) != value) {
+			evaluationState.recordChange(index, value);
+		}
+		if (value) {
+			words[index >>> 6] |= 1L << index;
+		} else {
+			words[index >>> 6] &= ~(1L << index);
 		}
 	}
 
-	public byte[] getChromosome() {
-		return chromosome;
+	public void flip(int index) {
+		words[index >>> 6] ^= 1L << index;
+		if (evaluationState != null) {
+			evaluationState.recordChange(index, get(index));
+		}
 	}
 
-	public void setChromosome(byte[] chromosome) {
-		this.chromosome = chromosome;
+	public int cardinality() {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Index of the first set bit at or after fromIndex, or -1 if there is none.
+	 */
+	public int nextSetBit(int fromIndex) {
+		if (fromIndex >= length) {
+			return -1;
+		}
+		int wordIndex = fromIndex >>> 6;
+		long word = words[wordIndex] & (WORD_MASK << fromIndex);
+		while (true) {
+			if (word != 0) {
+				return wordIndex * WORD_SIZE + Long.numberOfTrailingZeros(word);
+			}
+			if (++wordIndex == words.length) {
+				return -1;
+			}
+			word = words[wordIndex];
+		}
+	}
+
+	/**
+	 * Copies the genes in [fromIndex, toIndex) from source using whole-word
+	 * masks. Both chromosomes must have the same length.
+	 */
+	public void copyRange(BinaryString source, int fromIndex, int toIndex) {
+		if (fromIndex >= toIndex) {
+			return;
+		}
+		int firstWord = fromIndex >>> 6;
+		int lastWord = (toIndex - 1) >>> 6;
+		long firstMask = WORD_MASK << fromIndex;
+		long lastMask = WORD_MASK >>> -toIndex;
+		if (evaluationState != null && !evaluationState.isStale()) {
+			recordDifferences(source, firstWord, lastWord, firstMask, lastMask);
+		}
+
+		if (firstWord == lastWord) {
+			long mask = firstMask & lastMask;
+			words[firstWord] = (words[firstWord] & ~mask) | (source.words[firstWord] & mask);
+			return;
+		}
+
+		words[firstWord] = (words[firstWord] & ~firstMask) | (source.words[firstWord] & firstMask);
+		System.arraycopy(source.words, firstWord + 1, words, firstWord + 1, lastWord - firstWord - 1);
+		words[lastWord] = (words[lastWord] & ~lastMask) | (source.words[lastWord] & lastMask);
+	}
+
+	// Journal the genes in the masked range that differ from source
+	private void recordDifferences(BinaryString source, int firstWord, int lastWord, long firstMask,
+			long lastMask) {
+		for (int wordIndex = firstWord; wordIndex <= lastWord; wordIndex++) {
+			long mask = WORD_MASK;
+			if (wordIndex == firstWord) {
+				mask &= firstMask;
+			}
+			if (wordIndex == lastWord) {
+				mask &= lastMask;
+			}
+			long sourceWord = source.words[wordIndex];
+			long difference = (words[wordIndex] ^ sourceWord) & mask;
+			while (difference != 0) {
+				int bit = Long.numberOfTrailingZeros(difference);
+				difference &= difference - 1;
+				evaluationState.recordChange((wordIndex << 6) + bit, (sourceWord & (1L << bit)) != 0);
+			}
+		}
+	}
+
+	public byte[] toByteArray() {
+		byte[] genes = new byte[length];
+		for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+			genes[i] = 1;
+		}
+		return genes;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BinaryString)) {
+			return false;
+		}
+		BinaryString other = (BinaryString) obj;
+		return length == other.length && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * length + Arrays.hashCode(words);
 	}
 
 	@Override
 	public String toString() {
-		return "Individual [fitness=" + fitness + ", chromosome=" + Arrays.toString(chromosome) + "]";
+		return "Individual [fitness=" + fitness + ", chromosome=" + Arrays.toString(toByteArray()) + "]";
 	}
 
 }
@@ -0,0 +1,160 @@
+package es.uma.informatica.misia.ae.mkpga.problem;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Cached evaluation data carried by an individual so that a child can be
+ * re-evaluated from its parent's values instead of from scratch.
+ *
+ * The state holds the profit and the per-constraint loads of the chromosome as
+ * it was when last evaluated, plus a journal of the genes changed since then.
+ * Each journal entry is the gene index when the gene was set to 1 and its
+ * bitwise complement when it was set to 0, so replaying the journal in order is
+ * exact even if the same gene changes more than once.
+ *
+ * When the journal grows past its limit a full evaluation is cheaper than the
+ * delta, and the state is marked stale.
+ */
+public class EvaluationState {
+	private static final int INITIAL_JOURNAL_CAPACITY = 8;
+
+	private double profit;
+	private long[] loads;
+	private int[] changes;
+	private int changeCount;
+	private int maxChanges;
+	private boolean stale;
+
+	public EvaluationState() {
+		this.changes = new int[INITIAL_JOURNAL_CAPACITY];
+		this.stale = true;
+	}
+
+	public EvaluationState(EvaluationState state) {
+		this.profit = state.profit;
+		this.loads = state.loads == null ? null : state.loads.clone();
+		this.changes = Arrays.copyOf(state.changes, Math.max(INITIAL_JOURNAL_CAPACITY, state.changeCount));
+		this.changeCount = state.changeCount;
+		this.maxChanges = state.maxChanges;
+		this.stale = state.stale;
+	}
+
+	// Overwrite this state with the contents of state, reusing its arrays
+	public void copyFrom(EvaluationState state) {
+		profit = state.profit;
+		if (state.loads == null) {
+			loads = null;
+		} else if (loads == null || loads.length != state.loads.length) {
+			loads = state.loads.clone();
+		} else {
+			System.arraycopy(state.loads, 0, loads, 0, loads.length);
+		}
+		if (changes.length < state.changeCount) {
+			changes = new int[state.changes.length];
+		}
+		System.arraycopy(state.changes, 0, changes, 0, state.changeCount);
+		changeCount = state.changeCount;
+		maxChanges = state.maxChanges;
+		stale = state.stale;
+	}
+
+	/**
+	 * Prepares the state to receive a full evaluation with the given load vector
+	 * length and journal limit.
+	 */
+	public void reset(int loadLength, int maxChanges) {
+		if (loads == null || loads.length != loadLength) {
+			loads = new long[loadLength];
+		} else {
+			Arrays.fill(loads, 0L);
+		}
+		this.maxChanges = maxChanges;
+		this.changeCount = 0;
+		this.stale = false;
+	}
+
+	public void recordChange(int locus, boolean value) {
+		if (stale) {
+			return;
+		}
+		if (changeCount == maxChanges) {
+			invalidate();
+			return;
+		}
+		if (changeCount == changes.length) {
+			changes = Arrays.copyOf(changes, Math.min(maxChanges, changes.length * 2));
+		}
+		changes[changeCount++] = value ? locus : ~locus;
+	}
+
+	public void clearChanges() {
+		changeCount = 0;
+	}
+
+	public void invalidate() {
+		stale = true;
+		changeCount = 0;
+	}
+
+	public boolean isStale() {
+		return stale;
+	}
+
+	public double getProfit() {
+		return profit;
+	}
+
+	public void setProfit(double profit) {
+		this.profit = profit;
+	}
+
+	public long[] getLoads() {
+		return loads;
+	}
+
+	public int[] getChanges() {
+		return changes;
+	}
+
+	public int getChangeCount() {
+		return changeCount;
+	}
+
+	// Binary form used by checkpoints
+	public void write(DataOutput out) throws IOException {
+		out.writeDouble(profit);
+		out.writeInt(loads == null ? -1 : loads.length);
+		for (int i = 0; loads != null && i < loads.length; i++) {
+			out.writeLong(loads[i]);
+		}
+		out.writeInt(changeCount);
+		for (int i = 0; i < changeCount; i++) {
+			out.writeInt(changes[i]);
+		}
+		out.writeInt(maxChanges);
+		out.writeBoolean(stale);
+	}
+
+	public static EvaluationState read(DataInput in) throws IOException {
+		EvaluationState state = new EvaluationState();
+		state.profit = in.readDouble();
+		int loadLength = in.readInt();
+		if (loadLength >= 0) {
+			state.loads = new long[loadLength];
+			for (int i = 0; i < loadLength; i++) {
+				state.loads[i] = in.readLong();
+			}
+		}
+		state.changeCount = in.readInt();
+		state.changes = new int[Math.max(INITIAL_JOURNAL_CAPACITY, state.changeCount)];
+		for (int i = 0; i < state.changeCount; i++) {
+			state.changes[i] = in.readInt();
+		}
+		state.maxChanges = in.readInt();
+		state.stale = in.readBoolean();
+		return state;
+	}
+}
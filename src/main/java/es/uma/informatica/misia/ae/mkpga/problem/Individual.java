@@ -3,11 +3,23 @@ package es.uma.informatica.misia.ae.mkpga.problem;
 public class Individual {
 
 	protected double fitness;
+	protected transient EvaluationState evaluationState;
 
 	public Individual() {
 		super();
 	}
 
+	public Individual copy() {
+		Individual individual = new Individual();
+		individual.fitness = fitness;
+		return individual;
+	}
+
+	// Overwrite this individual with the contents of source, reusing its storage
+	public void copyFrom(Individual source) {
+		fitness = source.fitness;
+	}
+
 	public double getFitness() {
 		return fitness;
 	}
@@ -16,4 +28,13 @@ public class Individual {
 		this.fitness = fitness;
 	}
 
-}
\ No newline at end of file
+	// Optional cached evaluation data, null when incremental evaluation is off
+	public EvaluationState getEvaluationState() {
+		return evaluationState;
+	}
+
+	public void setEvaluationState(EvaluationState evaluationState) {
+		this.evaluationState = evaluationState;
+	}
+
+}
@@ -0,0 +1,68 @@
+package es.uma.informatica.misia.ae.mkpga.problem;
+
+/**
+ * Arithmetic on constraint load vectors, the inner loop of the evaluation.
+ * A kernel owns the weights and capacities of one instance in the layout it
+ * needs, and load vectors passed to it must have {@link #loadLength()}
+ * elements, which may be more than the number of constraints.
+ *
+ * The kernel is chosen when the problem is created with the mkpga.kernel
+ * system property: "scalar", "vector" or, by default, the vector kernel when
+ * the jdk.incubator.vector module is available (java --add-modules
+ * jdk.incubator.vector) and the instance has enough constraints to fill a few
+ * vectors, and the scalar one otherwise. All kernels compute the same integer
+ * loads, so the choice never changes the results.
+ */
+public interface LoadKernel {
+	public static final String KERNEL_PROPERTY = "mkpga.kernel";
+	public static final String SCALAR = "scalar";
+	public static final String VECTOR = "vector";
+
+	int loadLength();
+
+	// loads += weights of the item
+	void add(int itemIndex, long[] loads);
+
+	// loads -= weights of the item
+	void subtract(int itemIndex, long[] loads);
+
+	// True if adding the item keeps every load within its capacity
+	boolean fits(int itemIndex, long[] loads);
+
+	boolean isFeasible(long[] loads);
+
+	String name();
+
+	static LoadKernel create(int numberConstraints, int[] itemWeights, int[] constraintCapacities) {
+		String kernel = System.getProperty(KERNEL_PROPERTY, "");
+		if (!kernel.equals(SCALAR)) {
+			boolean required = kernel.equals(VECTOR);
+			Class<?> vectorKernel = null;
+			try {
+				// Loaded reflectively so a missing module only disables this kernel
+				vectorKernel = Class.forName(LoadKernel.class.getPackage().getName() + ".VectorLoadKernel");
+			} catch (ClassNotFoundException | LinkageError e) {
+				if (required) {
+					throw new IllegalStateException(
+							"Vector kernel not available, it needs --add-modules jdk.incubator.vector", e);
+				}
+			}
+			if (vectorKernel != null) {
+				try {
+					Object supported = required ? vectorKernel.getDeclaredMethod("isSupported").invoke(null)
+							: vectorKernel.getDeclaredMethod("isSupported", int.class).invoke(null, numberConstraints);
+					if ((Boolean) supported) {
+						return (LoadKernel) vectorKernel.getDeclaredConstructor(int.class, int[].class, int[].class)
+								.newInstance(numberConstraints, itemWeights, constraintCapacities);
+					}
+				} catch (ReflectiveOperationException e) {
+					throw new IllegalStateException("Error creating the vector kernel", e);
+				}
+				if (required) {
+					throw new IllegalStateException("Vector kernel not available, no SIMD support for long vectors");
+				}
+			}
+		}
+		return new ScalarLoadKernel(numberConstraints, itemWeights, constraintCapacities);
+	}
+}
@@ -1,5 +1,7 @@
 package es.uma.informatica.misia.ae.mkpga.problem;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -8,9 +10,15 @@ import java.util.Random;
  * The MKP is a generalization of the knapsack problem where multiple
  * constraints are considered. Each item has a profit and multiple weights, and
  * the goal is to maximize the total profit while satisfying all constraints.
- * 
+ *
  * The class provides methods to get the number of items, number of
  * constraints, optimal value, profits, constraints, and capacities.
+ *
+ * Internally the instance is compiled into flat primitive arrays. Weights are
+ * stored item-major, so the weights of one item for every constraint are
+ * contiguous in memory and can be accumulated in a single pass. The list
+ * getters are read-only views over these arrays. The load arithmetic is done
+ * by a {@link LoadKernel}, which may use SIMD instructions.
  */
 public class MultidimensionalKnapsackProblem implements Problem {
 
@@ -21,15 +29,37 @@ public class MultidimensionalKnapsackProblem implements Problem {
 	private List<List<Integer>> constraints;
 	private List<Integer> capacities;
 
+	// Compiled instance, excluded from serialization
+	private transient double[] itemProfits;
+	private transient int[] itemWeights;
+	private transient int[] constraintCapacities;
+	private transient LoadKernel kernel;
+	private transient ThreadLocal<long[]> totalWeightsBuffer;
+	private transient volatile int[] itemsByUtility;
+
 	// Constructor to initialize all fields at once
 	public MultidimensionalKnapsackProblem(int numberItems, int numberConstraints, double optimalValue,
 			List<Double> profits, List<List<Integer>> constraints, List<Integer> capacities) {
+		this(numberItems, numberConstraints, optimalValue, toProfitArray(profits, numberItems),
+				toItemMajorWeights(constraints, numberItems, numberConstraints),
+				toCapacityArray(capacities, numberConstraints));
+	}
+
+	// Constructor from the compiled form, weights indexed as [item * numberConstraints + constraint]
+	public MultidimensionalKnapsackProblem(int numberItems, int numberConstraints, double optimalValue,
+			double[] itemProfits, int[] itemWeights, int[] constraintCapacities) {
 		this.numberItems = numberItems;
 		this.numberConstraints = numberConstraints;
 		this.optimalValue = optimalValue;
-		this.profits = profits;
-		this.constraints = constraints;
-		this.capacities = capacities;
+		this.itemProfits = itemProfits;
+		this.itemWeights = itemWeights;
+		this.constraintCapacities = constraintCapacities;
+		this.kernel = LoadKernel.create(numberConstraints, itemWeights, constraintCapacities);
+		int loadLength = kernel.loadLength();
+		this.totalWeightsBuffer = ThreadLocal.withInitial(() -> new long[loadLength]);
+		this.profits = new ProfitsView();
+		this.constraints = new ConstraintsView();
+		this.capacities = new CapacitiesView();
 	}
 
 	// Getters
@@ -57,6 +87,141 @@ public class MultidimensionalKnapsackProblem implements Problem {
 		return capacities;
 	}
 
+	// Compiled instance getters, the returned arrays must not be modified
+	public double[] getItemProfits() {
+		return itemProfits;
+	}
+
+	public int[] getItemWeights() {
+		return itemWeights;
+	}
+
+	public int[] getConstraintCapacities() {
+		return constraintCapacities;
+	}
+
+	/**
+	 * Item indices sorted by increasing pseudo-utility, computed once per
+	 * instance. The pseudo-utility of an item is its profit divided by the sum of
+	 * its weights relative to each capacity, p_j / sum_i(w_ij / c_i).
+	 */
+	public int[] getItemsByUtility() {
+		int[] order = itemsByUtility;
+		if (order == null) {
+			double[] utilities = new double[numberItems];
+			for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+				double relativeWeight = 0.0;
+				int offset = itemIndex * numberConstraints;
+				for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+					relativeWeight += (double) itemWeights[offset + constraintIndex]
+							/ Math.max(1, constraintCapacities[constraintIndex]);
+				}
+				utilities[itemIndex] = relativeWeight > 0.0 ? itemProfits[itemIndex] / relativeWeight
+						: Double.POSITIVE_INFINITY;
+			}
+			Integer[] boxed = new Integer[numberItems];
+			for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+				boxed[itemIndex] = itemIndex;
+			}
+			Arrays.sort(boxed, (a, b) -> Double.compare(utilities[a], utilities[b]));
+			order = new int[numberItems];
+			for (int position = 0; position < numberItems; position++) {
+				order[position] = boxed[position];
+			}
+			itemsByUtility = order;
+		}
+		return order;
+	}
+
+	/**
+	 * Upper bound of the optimal value: the smallest of the linear relaxations of
+	 * the single constraint knapsacks, each solved greedily by profit per unit of
+	 * weight with one fractional item. Computed in O(constraints * items log
+	 * items).
+	 */
+	public double computeUpperBound() {
+		double bound = Double.POSITIVE_INFINITY;
+		Integer[] items = new Integer[numberItems];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			int constraint = constraintIndex;
+			for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+				items[itemIndex] = itemIndex;
+			}
+			// Decreasing profit per unit of weight, weightless items first
+			Arrays.sort(items, (a, b) -> Double.compare(
+					(double) itemWeights[a * numberConstraints + constraint] * itemProfits[b],
+					(double) itemWeights[b * numberConstraints + constraint] * itemProfits[a]));
+			double relaxation = 0.0;
+			long remaining = constraintCapacities[constraint];
+			for (int itemIndex : items) {
+				int weight = itemWeights[itemIndex * numberConstraints + constraint];
+				if (weight <= remaining) {
+					relaxation += itemProfits[itemIndex];
+					remaining -= weight;
+				} else {
+					relaxation += itemProfits[itemIndex] * remaining / weight;
+					break;
+				}
+			}
+			bound = Math.min(bound, relaxation);
+		}
+		return bound;
+	}
+
+	/**
+	 * Fills loads, of {@link #getLoadLength()} elements, with the total weight of
+	 * the selected items for each constraint. A valid {@link EvaluationState} is used as the starting point
+	 * and only its journaled changes are applied, the state is not modified.
+	 */
+	public void computeLoads(BinaryString binaryString, long[] loads) {
+		EvaluationState state = binaryString.getEvaluationState();
+		if (state != null && !state.isStale()) {
+			System.arraycopy(state.getLoads(), 0, loads, 0, loads.length);
+			int[] changes = state.getChanges();
+			for (int changeIndex = 0; changeIndex < state.getChangeCount(); changeIndex++) {
+				int change = changes[changeIndex];
+				if (change >= 0) {
+					addWeights(change, loads);
+				} else {
+					subtractWeights(~change, loads);
+				}
+			}
+			return;
+		}
+
+		Arrays.fill(loads, 0L);
+		long[] words = binaryString.getWords();
+		for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+			long word = words[wordIndex];
+			while (word != 0) {
+				addWeights((wordIndex << 6) + Long.numberOfTrailingZeros(word), loads);
+				word &= word - 1;
+			}
+		}
+	}
+
+	// Length of the load vectors used by computeLoads and the weight operations
+	public int getLoadLength() {
+		return kernel.loadLength();
+	}
+
+	public LoadKernel getKernel() {
+		return kernel;
+	}
+
+	public void addWeights(int itemIndex, long[] loads) {
+		kernel.add(itemIndex, loads);
+	}
+
+	public void subtractWeights(int itemIndex, long[] loads) {
+		kernel.subtract(itemIndex, loads);
+	}
+
+	// True if the item can be added without exceeding any capacity
+	public boolean fits(int itemIndex, long[] loads) {
+		return kernel.fits(itemIndex, loads);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -77,30 +242,168 @@ public class MultidimensionalKnapsackProblem implements Problem {
 
 	public double evaluate(Individual individual) {
 		BinaryString binaryString = (BinaryString) individual;
+		long[] words = binaryString.getWords();
 		double totalProfit = 0.0;
-		double[] totalWeights = new double[numberConstraints];
+		EvaluationState state = individual.getEvaluationState();
+		long[] totalWeights;
+		if (state != null) {
+			// Fill the cached loads so children can be evaluated incrementally
+			state.reset(kernel.loadLength(), numberItems / 4 + 1);
+			totalWeights = state.getLoads();
+		} else {
+			totalWeights = totalWeightsBuffer.get();
+			Arrays.fill(totalWeights, 0L);
+		}
 
-		for (int itemIndex = 0; itemIndex < binaryString.getChromosome().length; itemIndex++) {
-			if (binaryString.getChromosome()[itemIndex] == 1) {
-				totalProfit += profits.get(itemIndex);
-				for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
-					totalWeights[constraintIndex] += constraints.get(constraintIndex).get(itemIndex);
-				}
+		// Walk only the selected items, one word at a time
+		for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+			long word = words[wordIndex];
+			while (word != 0) {
+				int itemIndex = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				totalProfit += itemProfits[itemIndex];
+				kernel.add(itemIndex, totalWeights);
 			}
 		}
+		if (state != null) {
+			state.setProfit(totalProfit);
+		}
 
-		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
-			if (totalWeights[constraintIndex] > capacities.get(constraintIndex)) {
-				// TODO what to do with not feasible solutions???
-				// If any constraint is violated, return 0
-				return 0.0;
+		return isFeasible(totalWeights) ? totalProfit : 0.0;
+	}
+
+	/**
+	 * Replays the journaled gene changes on the cached constraint loads, so the
+	 * cost is O(k * m) for k changes instead of O(n * m). The profit is summed
+	 * again over the selected items in index order, which is O(n / 64 + items)
+	 * and keeps the result bit-identical to a full evaluation.
+	 */
+	@Override
+	public double evaluateDelta(Individual individual, int[] changes, int changeCount) {
+		EvaluationState state = individual.getEvaluationState();
+		long[] loads = state.getLoads();
+
+		for (int changeIndex = 0; changeIndex < changeCount; changeIndex++) {
+			int change = changes[changeIndex];
+			if (change >= 0) {
+				kernel.add(change, loads);
+			} else {
+				kernel.subtract(~change, loads);
+			}
+		}
+		state.clearChanges();
+
+		double totalProfit = 0.0;
+		long[] words = ((BinaryString) individual).getWords();
+		for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+			long word = words[wordIndex];
+			while (word != 0) {
+				totalProfit += itemProfits[(wordIndex << 6) + Long.numberOfTrailingZeros(word)];
+				word &= word - 1;
 			}
 		}
+		state.setProfit(totalProfit);
+
+		return isFeasible(loads) ? totalProfit : 0.0;
+	}
 
-		return totalProfit;
+	// TODO what to do with not feasible solutions???
+	// If any constraint is violated, the evaluation returns 0
+	public boolean isFeasible(long[] totalWeights) {
+		return kernel.isFeasible(totalWeights);
 	}
 
 	public BinaryString generateRandomIndividual(Random rnd) {
 		return new BinaryString(numberItems, rnd);
 	}
+
+	// Compile the boxed representation into primitive arrays
+	private static double[] toProfitArray(List<Double> profits, int numberItems) {
+		double[] result = new double[numberItems];
+		for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+			result[itemIndex] = profits.get(itemIndex);
+		}
+		return result;
+	}
+
+	private static int[] toItemMajorWeights(List<List<Integer>> constraints, int numberItems,
+			int numberConstraints) {
+		int[] result = new int[numberItems * numberConstraints];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			List<Integer> constraint = constraints.get(constraintIndex);
+			for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+				result[itemIndex * numberConstraints + constraintIndex] = constraint.get(itemIndex);
+			}
+		}
+		return result;
+	}
+
+	private static int[] toCapacityArray(List<Integer> capacities, int numberConstraints) {
+		int[] result = new int[numberConstraints];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			result[constraintIndex] = capacities.get(constraintIndex);
+		}
+		return result;
+	}
+
+	// Read-only list views over the compiled arrays
+	private class ProfitsView extends AbstractList<Double> {
+		@Override
+		public Double get(int itemIndex) {
+			return itemProfits[itemIndex];
+		}
+
+		@Override
+		public int size() {
+			return numberItems;
+		}
+	}
+
+	private class ConstraintsView extends AbstractList<List<Integer>> {
+		@Override
+		public List<Integer> get(int constraintIndex) {
+			if (constraintIndex < 0 || constraintIndex >= numberConstraints) {
+				throw new IndexOutOfBoundsException("Constraint index: " + constraintIndex);
+			}
+			return new ConstraintWeightsView(constraintIndex);
+		}
+
+		@Override
+		public int size() {
+			return numberConstraints;
+		}
+	}
+
+	private class ConstraintWeightsView extends AbstractList<Integer> {
+		private final int constraintIndex;
+
+		ConstraintWeightsView(int constraintIndex) {
+			this.constraintIndex = constraintIndex;
+		}
+
+		@Override
+		public Integer get(int itemIndex) {
+			if (itemIndex < 0 || itemIndex >= numberItems) {
+				throw new IndexOutOfBoundsException("Item index: " + itemIndex);
+			}
+			return itemWeights[itemIndex * numberConstraints + constraintIndex];
+		}
+
+		@Override
+		public int size() {
+			return numberItems;
+		}
+	}
+
+	private class CapacitiesView extends AbstractList<Integer> {
+		@Override
+		public Integer get(int constraintIndex) {
+			return constraintCapacities[constraintIndex];
+		}
+
+		@Override
+		public int size() {
+			return numberConstraints;
+		}
+	}
 }
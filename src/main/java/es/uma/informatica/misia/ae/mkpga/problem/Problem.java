@@ -5,6 +5,15 @@ import java.util.Random;
 public interface Problem {
 	double evaluate(Individual individual);
 
+	/**
+	 * Evaluates an individual from its cached {@link EvaluationState}, applying
+	 * only the journaled gene changes. Problems without incremental support fall
+	 * back to a full evaluation.
+	 */
+	default double evaluateDelta(Individual individual, int[] changes, int changeCount) {
+		return evaluate(individual);
+	}
+
 	Individual generateRandomIndividual(Random rnd);
 
 	double getOptimalValue();
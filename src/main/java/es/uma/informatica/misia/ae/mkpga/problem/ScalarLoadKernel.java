@@ -0,0 +1,63 @@
+package es.uma.informatica.misia.ae.mkpga.problem;
+
+/**
+ * Portable kernel, one constraint at a time over the item-major weights.
+ */
+class ScalarLoadKernel implements LoadKernel {
+	private final int numberConstraints;
+	private final int[] itemWeights;
+	private final int[] constraintCapacities;
+
+	ScalarLoadKernel(int numberConstraints, int[] itemWeights, int[] constraintCapacities) {
+		this.numberConstraints = numberConstraints;
+		this.itemWeights = itemWeights;
+		this.constraintCapacities = constraintCapacities;
+	}
+
+	@Override
+	public int loadLength() {
+		return numberConstraints;
+	}
+
+	@Override
+	public void add(int itemIndex, long[] loads) {
+		int offset = itemIndex * numberConstraints;
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			loads[constraintIndex] += itemWeights[offset + constraintIndex];
+		}
+	}
+
+	@Override
+	public void subtract(int itemIndex, long[] loads) {
+		int offset = itemIndex * numberConstraints;
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			loads[constraintIndex] -= itemWeights[offset + constraintIndex];
+		}
+	}
+
+	@Override
+	public boolean fits(int itemIndex, long[] loads) {
+		int offset = itemIndex * numberConstraints;
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			if (loads[constraintIndex] + itemWeights[offset + constraintIndex] > constraintCapacities[constraintIndex]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isFeasible(long[] loads) {
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			if (loads[constraintIndex] > constraintCapacities[constraintIndex]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String name() {
+		return SCALAR;
+	}
+}
@@ -0,0 +1,111 @@
+package es.uma.informatica.misia.ae.mkpga.problem;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel on the jdk.incubator.vector API. The weights are widened to long
+ * and every item row is padded with zeros to a whole number of vectors, so an
+ * item is added with a few full-width vector adds and the capacities are
+ * checked with one compare per vector, without scalar tails or masks. Padding
+ * lanes have zero load and zero capacity and never make a solution
+ * infeasible.
+ *
+ * Only instantiated through {@link LoadKernel#create}, which falls back to the
+ * scalar kernel when the module is not available or {@link #isSupported(int)}
+ * is false. Unless it is required, the kernel is not used for instances with
+ * fewer constraints than two vectors, where the padding costs more than the
+ * SIMD lanes save.
+ */
+class VectorLoadKernel implements LoadKernel {
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	private static final int MIN_VECTORS = 2;
+
+	private final int stride;
+	private final long[] itemWeights;
+	private final long[] constraintCapacities;
+
+	// True when the preferred long vectors have more than one lane
+	static boolean isSupported() {
+		return LANES >= 2;
+	}
+
+	// True when the instance has enough constraints for the lanes to pay for the padding
+	static boolean isSupported(int numberConstraints) {
+		return isSupported() && numberConstraints >= MIN_VECTORS * LANES;
+	}
+
+	VectorLoadKernel(int numberConstraints, int[] itemWeights, int[] constraintCapacities) {
+		int numberItems = numberConstraints == 0 ? 0 : itemWeights.length / numberConstraints;
+		this.stride = Math.max(LANES, (numberConstraints + LANES - 1) / LANES * LANES);
+		this.itemWeights = new long[numberItems * stride];
+		for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+			for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+				this.itemWeights[itemIndex * stride + constraintIndex] = itemWeights[itemIndex * numberConstraints
+						+ constraintIndex];
+			}
+		}
+		this.constraintCapacities = new long[stride];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			this.constraintCapacities[constraintIndex] = constraintCapacities[constraintIndex];
+		}
+	}
+
+	@Override
+	public int loadLength() {
+		return stride;
+	}
+
+	@Override
+	public void add(int itemIndex, long[] loads) {
+		int offset = itemIndex * stride;
+		for (int lane = 0; lane < stride; lane += LANES) {
+			LongVector.fromArray(SPECIES, loads, lane)
+					.add(LongVector.fromArray(SPECIES, itemWeights, offset + lane))
+					.intoArray(loads, lane);
+		}
+	}
+
+	@Override
+	public void subtract(int itemIndex, long[] loads) {
+		int offset = itemIndex * stride;
+		for (int lane = 0; lane < stride; lane += LANES) {
+			LongVector.fromArray(SPECIES, loads, lane)
+					.sub(LongVector.fromArray(SPECIES, itemWeights, offset + lane))
+					.intoArray(loads, lane);
+		}
+	}
+
+	@Override
+	public boolean fits(int itemIndex, long[] loads) {
+		int offset = itemIndex * stride;
+		for (int lane = 0; lane < stride; lane += LANES) {
+			LongVector load = LongVector.fromArray(SPECIES, loads, lane)
+					.add(LongVector.fromArray(SPECIES, itemWeights, offset + lane));
+			if (load.compare(VectorOperators.GT, LongVector.fromArray(SPECIES, constraintCapacities, lane))
+					.anyTrue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean isFeasible(long[] loads) {
+		for (int lane = 0; lane < stride; lane += LANES) {
+			if (LongVector.fromArray(SPECIES, loads, lane)
+					.compare(VectorOperators.GT, LongVector.fromArray(SPECIES, constraintCapacities, lane))
+					.anyTrue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String name() {
+		return VECTOR;
+	}
+}
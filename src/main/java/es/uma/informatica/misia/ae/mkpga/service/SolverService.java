@@ -0,0 +1,459 @@
+package es.uma.informatica.misia.ae.mkpga.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import es.uma.informatica.misia.ae.mkpga.algorithm.EvolutionaryAlgorithm;
+import es.uma.informatica.misia.ae.mkpga.algorithm.FitnessCache;
+import es.uma.informatica.misia.ae.mkpga.algorithm.PopulationDiversity;
+import es.uma.informatica.misia.ae.mkpga.algorithm.crossover.Crossover;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.GeometricBitFlipMutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.mutation.Mutation;
+import es.uma.informatica.misia.ae.mkpga.algorithm.repair.Repair;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.DeadlineCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.EvaluationRateCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.GapCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.StagnationCriterion;
+import es.uma.informatica.misia.ae.mkpga.algorithm.stopping.StoppingCriterion;
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+import es.uma.informatica.misia.ae.mkpga.util.MetricsCollector;
+import es.uma.informatica.misia.ae.mkpga.util.RestorableRandom;
+import es.uma.informatica.misia.ae.mkpga.util.TraceSink;
+
+/**
+ * Long-lived local solver. The problem instances are loaded once and kept
+ * resident, the solver is warmed up so the JIT has compiled the hot loop, and
+ * solve jobs received over HTTP on the loopback interface run on a bounded
+ * pool of workers. When all workers are busy and the queue is full, new jobs
+ * are rejected with 503 so clients can back off. The population size, the
+ * evaluations and the time limit of a job are capped by the options, so a
+ * single job cannot hold a worker indefinitely.
+ * 
+ * Endpoints:
+ * 
+ * - /solve?problem=<index>&crossoverProbability=<p>&mutationProbability=<p>
+ * [&functionEvaluations=<fe>][&populationSize=<n>][&seed=<s>][&<name>=<value>...]
+ * runs one steady-state EvolutionaryAlgorithm and streams newline-delimited
+ * JSON events: a started event when a worker takes the job, an improvement
+ * event for every new entry of the convergence trace, a heartbeat event every
+ * HEARTBEAT_INTERVAL ns without one, and a final result or error event. Only
+ * the parameters in JOB_PARAMETERS are accepted, so a job never starts
+ * threads of its own.
+ * - /instances lists the resident instances.
+ * - /health reports the workers, running and queued jobs.
+ */
+public class SolverService {
+	public static final String PORT = "port";
+	public static final String THREADS = "threads";
+	public static final String QUEUE = "queue";
+	public static final String WARMUP = "warmup";
+	public static final String MAX_POPULATION = "maxPopulation";
+	public static final String MAX_EVALUATIONS = "maxEvaluations";
+	public static final String MAX_TIME_LIMIT = "maxTimeLimit";
+
+	private static final int DEFAULT_PORT = 8080;
+	private static final int DEFAULT_QUEUE = 64;
+	public static final int DEFAULT_WARMUP_EVALUATIONS = 20000;
+	private static final int DEFAULT_POPULATION_SIZE = 10;
+	private static final int DEFAULT_FUNCTION_EVALUATIONS = 1000;
+	private static final int DEFAULT_MAX_POPULATION = 10000;
+	private static final int DEFAULT_MAX_EVALUATIONS = 10_000_000;
+	private static final long DEFAULT_MAX_TIME_LIMIT = 10000;
+	private static final int HTTP_THREADS = 2;
+	private static final int MAX_FITNESS_CACHE_SIZE = 1 << 20;
+	private static final long HEARTBEAT_INTERVAL = 1_000_000_000L;
+
+	// Parameters of a single-threaded run, the modes with threads of their own are left out
+	private static final Set<String> JOB_PARAMETERS = Set.of(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM,
+			Crossover.CROSSOVER_PROBABILITY_PARAM, Mutation.MUTATION_PROBABILITY_PARAMETER,
+			EvolutionaryAlgorithm.INCREMENTAL_EVALUATION_PARAM, EvolutionaryAlgorithm.ZERO_ALLOCATION_PARAM,
+			FitnessCache.SIZE_PARAM, FitnessCache.HITS_AS_EVALUATIONS_PARAM, Repair.REPAIR_PARAM,
+			MetricsCollector.TRACE_INTERVAL_PARAM, RestorableRandom.RNG_PARAM,
+			GeometricBitFlipMutation.GEOMETRIC_MUTATION_PARAM, PopulationDiversity.DIVERSITY_PARAM,
+			PopulationDiversity.REJECT_DUPLICATES_PARAM, StagnationCriterion.STAGNATION_PARAM,
+			GapCriterion.TARGET_GAP_PARAM, GapCriterion.BOUND_PARAM, DeadlineCriterion.TIME_LIMIT_PARAM,
+			EvaluationRateCriterion.MIN_EVALUATION_RATE_PARAM, EvaluationRateCriterion.RATE_WINDOW_PARAM,
+			StoppingCriterion.ALL_CRITERIA_PARAM);
+
+	private final List<MultidimensionalKnapsackProblem> problems;
+	private final ThreadPoolExecutor workers;
+	private final ExecutorService httpExecutor;
+	private final HttpServer server;
+	private final CountDownLatch stopped = new CountDownLatch(1);
+	private final int maxPopulation;
+	private final int maxEvaluations;
+	private final long maxTimeLimit;
+
+	public SolverService(List<MultidimensionalKnapsackProblem> problems, Map<String, String> options)
+			throws IOException {
+		this.problems = problems;
+		int threads = Integer.parseInt(
+				options.getOrDefault(THREADS, String.valueOf(Runtime.getRuntime().availableProcessors())));
+		int queue = Integer.parseInt(options.getOrDefault(QUEUE, String.valueOf(DEFAULT_QUEUE)));
+		int port = Integer.parseInt(options.getOrDefault(PORT, String.valueOf(DEFAULT_PORT)));
+		this.maxPopulation = Integer
+				.parseInt(options.getOrDefault(MAX_POPULATION, String.valueOf(DEFAULT_MAX_POPULATION)));
+		this.maxEvaluations = Integer
+				.parseInt(options.getOrDefault(MAX_EVALUATIONS, String.valueOf(DEFAULT_MAX_EVALUATIONS)));
+		this.maxTimeLimit = Long
+				.parseLong(options.getOrDefault(MAX_TIME_LIMIT, String.valueOf(DEFAULT_MAX_TIME_LIMIT)));
+		this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queue)));
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/solve", this::handleSolve);
+		server.createContext("/instances", this::handleInstances);
+		server.createContext("/health", this::handleHealth);
+		this.httpExecutor = Executors.newFixedThreadPool(HTTP_THREADS);
+		server.setExecutor(httpExecutor);
+	}
+
+	/**
+	 * Runs the given number of evaluations on every instance so the hot loop is
+	 * compiled before the first job arrives.
+	 */
+	public void warmUp(int evaluations) {
+		for (int i = 0; i < problems.size() && evaluations > 0; i++) {
+			Map<String, Double> parameters = new HashMap<>();
+			parameters.put(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM, (double) DEFAULT_POPULATION_SIZE);
+			parameters.put(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM, (double) evaluations);
+			parameters.put(Crossover.CROSSOVER_PROBABILITY_PARAM, 0.9);
+			parameters.put(Mutation.MUTATION_PROBABILITY_PARAMETER, 0.05);
+			parameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, (double) i);
+			new EvolutionaryAlgorithm(parameters, problems.get(i)).run();
+		}
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public void stop() {
+		server.stop(0);
+		httpExecutor.shutdownNow();
+		workers.shutdownNow();
+		stopped.countDown();
+	}
+
+	public void awaitStop() throws InterruptedException {
+		stopped.await();
+	}
+
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+		Job job;
+		try {
+			job = new Job(exchange, query);
+		} catch (IllegalArgumentException e) {
+			sendJson(exchange, 400, error(e.getMessage()));
+			return;
+		}
+		try {
+			workers.execute(job);
+		} catch (RejectedExecutionException e) {
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			sendJson(exchange, 503, error("Solver queue is full"));
+		}
+	}
+
+	private void handleInstances(HttpExchange exchange) throws IOException {
+		JsonArray instances = new JsonArray();
+		for (int i = 0; i < problems.size(); i++) {
+			MultidimensionalKnapsackProblem problem = problems.get(i);
+			JsonObject instance = new JsonObject();
+			instance.addProperty("problem", i);
+			instance.addProperty("numberItems", problem.getNumberItems());
+			instance.addProperty("numberConstraints", problem.getNumberConstraints());
+			instance.addProperty("optimalValue", problem.getOptimalValue());
+			instances.add(instance);
+		}
+		JsonObject json = new JsonObject();
+		json.add("instances", instances);
+		sendJson(exchange, 200, json);
+	}
+
+	private void handleHealth(HttpExchange exchange) throws IOException {
+		JsonObject json = new JsonObject();
+		json.addProperty("workers", workers.getMaximumPoolSize());
+		json.addProperty("running", workers.getActiveCount());
+		json.addProperty("queued", workers.getQueue().size());
+		json.addProperty("queueCapacity", workers.getQueue().size() + workers.getQueue().remainingCapacity());
+		json.addProperty("completed", workers.getCompletedTaskCount());
+		sendJson(exchange, 200, json);
+	}
+
+	private static JsonObject error(String message) {
+		JsonObject json = new JsonObject();
+		json.addProperty("error", message);
+		return json;
+	}
+
+	private static void sendJson(HttpExchange exchange, int status, JsonObject json) throws IOException {
+		byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new HashMap<>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int separator = pair.indexOf('=');
+			if (separator > 0) {
+				query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return query;
+	}
+
+	/**
+	 * One solve request. The response is streamed as newline-delimited JSON
+	 * from the worker thread, and a client that disconnects stops its run when
+	 * the next improvement or heartbeat fails to be written.
+	 */
+	private class Job implements Runnable, TraceSink {
+		private final HttpExchange exchange;
+		private final MultidimensionalKnapsackProblem problem;
+		private final int problemIndex;
+		private final EvolutionaryAlgorithm algorithm;
+		private final long submitNanoTime = System.nanoTime();
+		private OutputStream out;
+		private boolean disconnected;
+		private double lastFitness = Double.NaN;
+		private long lastEventNanoTime;
+
+		Job(HttpExchange exchange, Map<String, String> query) {
+			this.exchange = exchange;
+			Map<String, Double> parameters = new HashMap<>();
+			parameters.put(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM, (double) DEFAULT_POPULATION_SIZE);
+			parameters.put(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM, (double) DEFAULT_FUNCTION_EVALUATIONS);
+			parameters.put(EvolutionaryAlgorithm.RANDOM_SEED_PARAM, 0.0);
+			parameters.put(DeadlineCriterion.TIME_LIMIT_PARAM, (double) maxTimeLimit);
+			int index = -1;
+			for (Map.Entry<String, String> entry : query.entrySet()) {
+				String name;
+				switch (entry.getKey()) {
+				case "problem":
+					index = parseInt(entry.getKey(), entry.getValue());
+					continue;
+				case "functionEvaluations":
+					name = EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM;
+					break;
+				case "seed":
+					name = EvolutionaryAlgorithm.RANDOM_SEED_PARAM;
+					break;
+				default:
+					if (!JOB_PARAMETERS.contains(entry.getKey())) {
+						throw new IllegalArgumentException("Unsupported parameter: " + entry.getKey());
+					}
+					name = entry.getKey();
+				}
+				parameters.put(name, parseDouble(entry.getKey(), entry.getValue()));
+			}
+			if (index < 0 || index >= problems.size()) {
+				throw new IllegalArgumentException("problem must be an index between 0 and " + (problems.size() - 1));
+			}
+			if (!parameters.containsKey(Crossover.CROSSOVER_PROBABILITY_PARAM)
+					|| !parameters.containsKey(Mutation.MUTATION_PROBABILITY_PARAMETER)) {
+				throw new IllegalArgumentException("crossoverProbability and mutationProbability are required");
+			}
+			validate(parameters);
+			this.problemIndex = index;
+			this.problem = problems.get(index);
+			this.algorithm = new EvolutionaryAlgorithm(parameters, problem);
+			algorithm.getMetricsCollector().setTraceSink(this);
+		}
+
+		private void validate(Map<String, Double> parameters) {
+			double populationSize = parameters.get(EvolutionaryAlgorithm.POPULATION_SIZE_PARAM);
+			if (populationSize < 1 || populationSize > maxPopulation || populationSize != Math.rint(populationSize)) {
+				throw new IllegalArgumentException("populationSize must be an integer between 1 and " + maxPopulation);
+			}
+			double functionEvaluations = parameters.get(EvolutionaryAlgorithm.MAX_FUNCTION_EVALUATIONS_PARAM);
+			if (functionEvaluations < -1 || functionEvaluations > maxEvaluations
+					|| functionEvaluations != Math.rint(functionEvaluations)) {
+				throw new IllegalArgumentException("functionEvaluations must be an integer between 0 and "
+						+ maxEvaluations + ", or -1 to run until the optimal value");
+			}
+			double timeLimit = parameters.get(DeadlineCriterion.TIME_LIMIT_PARAM);
+			if (!(timeLimit > 0 && timeLimit <= maxTimeLimit)) {
+				throw new IllegalArgumentException(
+						DeadlineCriterion.TIME_LIMIT_PARAM + " must be positive and at most " + maxTimeLimit + " ms");
+			}
+			for (String name : new String[] { Crossover.CROSSOVER_PROBABILITY_PARAM,
+					Mutation.MUTATION_PROBABILITY_PARAMETER }) {
+				double probability = parameters.get(name);
+				if (!(probability >= 0 && probability <= 1)) {
+					throw new IllegalArgumentException(name + " must be between 0 and 1");
+				}
+			}
+			if (parameters.getOrDefault(FitnessCache.SIZE_PARAM, 0.0) > MAX_FITNESS_CACHE_SIZE) {
+				throw new IllegalArgumentException(
+						FitnessCache.SIZE_PARAM + " must be at most " + MAX_FITNESS_CACHE_SIZE);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+				// Chunked response, events are sent as they are produced
+				exchange.sendResponseHeaders(200, 0);
+				out = exchange.getResponseBody();
+				JsonObject started = new JsonObject();
+				started.addProperty("event", "started");
+				started.addProperty("problem", problemIndex);
+				started.addProperty("queueMillis", (System.nanoTime() - submitNanoTime) / 1_000_000);
+				send(started);
+
+				Individual best = algorithm.run();
+				MetricsCollector metricsCollector = algorithm.getMetricsCollector();
+				JsonObject result = new JsonObject();
+				result.addProperty("event", "result");
+				result.addProperty("fitness", best.getFitness());
+				result.addProperty("optimalValue", problem.getOptimalValue());
+				result.addProperty("executionTime", metricsCollector.getExecutionTime());
+				result.addProperty("numberOfEvaluations", metricsCollector.getNumberOfEvaluations());
+				result.addProperty("numberOfGenerations", metricsCollector.getNumberOfGenerations());
+				if (best instanceof BinaryString) {
+					result.addProperty("chromosome", chromosome((BinaryString) best));
+				}
+				send(result);
+			} catch (IOException | UncheckedIOException e) {
+				// The client went away, nothing left to report to
+			} catch (RuntimeException e) {
+				sendError(e);
+			} catch (Error e) {
+				sendError(e);
+				throw e;
+			} finally {
+				exchange.close();
+			}
+		}
+
+		@Override
+		public void append(int generationNumber, double fitness, long evaluations, long nanoTime) {
+			// The trace repeats a fitness at the second generation of each run of equal values
+			if (fitness == lastFitness) {
+				return;
+			}
+			lastFitness = fitness;
+			JsonObject improvement = new JsonObject();
+			improvement.addProperty("event", "improvement");
+			improvement.addProperty("generation", generationNumber);
+			improvement.addProperty("fitness", fitness);
+			improvement.addProperty("evaluations", evaluations);
+			improvement.addProperty("nanoTime", nanoTime);
+			try {
+				send(improvement, nanoTime);
+			} catch (IOException e) {
+				disconnected = true;
+				algorithm.requestStop();
+			}
+		}
+
+		// Moving the end of a run of equal fitness values is only reported as a periodic heartbeat
+		@Override
+		public void updateLast(int generationNumber, long evaluations, long nanoTime) {
+			if (nanoTime - lastEventNanoTime < HEARTBEAT_INTERVAL) {
+				return;
+			}
+			JsonObject heartbeat = new JsonObject();
+			heartbeat.addProperty("event", "heartbeat");
+			heartbeat.addProperty("generation", generationNumber);
+			heartbeat.addProperty("evaluations", evaluations);
+			try {
+				send(heartbeat, nanoTime);
+			} catch (IOException e) {
+				disconnected = true;
+				algorithm.requestStop();
+			}
+		}
+
+		private void send(JsonObject event, long nanoTime) throws IOException {
+			lastEventNanoTime = nanoTime;
+			send(event);
+		}
+
+		private void send(JsonObject event) throws IOException {
+			if (disconnected) {
+				return;
+			}
+			out.write((event + "\n").getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+
+		// Report a failed run as the last event, or as a 500 response before the stream started
+		private void sendError(Throwable e) {
+			try {
+				if (out == null) {
+					sendJson(exchange, 500, error(e.toString()));
+				} else {
+					JsonObject error = new JsonObject();
+					error.addProperty("event", "error");
+					error.addProperty("error", e.toString());
+					send(error);
+				}
+			} catch (IOException | UncheckedIOException ignored) {
+				// The client went away as well
+			}
+		}
+
+		// Genes as a string of 0 and 1
+		private String chromosome(BinaryString individual) {
+			StringBuilder sb = new StringBuilder(individual.getLength());
+			for (byte gene : individual.toByteArray()) {
+				sb.append(gene);
+			}
+			return sb.toString();
+		}
+
+		private int parseInt(String name, String value) {
+			double number = parseDouble(name, value);
+			if (number != Math.rint(number) || Math.abs(number) > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException(name + " must be an integer: " + value);
+			}
+			return (int) number;
+		}
+
+		private double parseDouble(String name, String value) {
+			try {
+				return Double.parseDouble(value);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(name + " must be a number: " + value);
+			}
+		}
+	}
+}
@@ -0,0 +1,283 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer of a table in the Arrow IPC streaming format, without the Arrow
+ * libraries. Rows are buffered column by column and written as one record
+ * batch on {@link #writeBatch()}, so a stream can be read back from pandas
+ * with pyarrow.ipc.open_stream. Columns are non-nullable 32 or 64 bit
+ * integers, doubles, or lists of integers or doubles.
+ * 
+ * Every value of a row is appended with the method of its column type, list
+ * values one by one, and the row is closed with {@link #endRow()}.
+ */
+public class ArrowStreamWriter implements Closeable {
+	public enum ColumnType {
+		INT32(4, false), INT64(8, false), FLOAT64(8, false), INT32_LIST(4, true), FLOAT64_LIST(8, true);
+
+		private final int width;
+		private final boolean list;
+
+		ColumnType(int width, boolean list) {
+			this.width = width;
+			this.list = list;
+		}
+	}
+
+	private static final int CONTINUATION = 0xFFFFFFFF;
+	private static final short METADATA_VERSION_V5 = 4;
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_RECORD_BATCH = 3;
+	private static final byte TYPE_INT = 2;
+	private static final byte TYPE_FLOATING_POINT = 3;
+	private static final byte TYPE_LIST = 12;
+	private static final short PRECISION_DOUBLE = 2;
+
+	private final String filePath;
+	private final FileChannel channel;
+	private final String[] names;
+	private final Column[] columns;
+	private int rows;
+
+	public ArrowStreamWriter(String filePath, String[] names, ColumnType[] types) throws IOException {
+		this.filePath = filePath;
+		this.names = names;
+		this.columns = new Column[types.length];
+		for (int i = 0; i < types.length; i++) {
+			columns[i] = new Column(types[i]);
+		}
+		this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		writeMessage(schema(), ByteBuffer.allocate(0));
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	public void appendInt(int column, int value) {
+		columns[column].values().putInt(value);
+	}
+
+	public void appendLong(int column, long value) {
+		columns[column].values().putLong(value);
+	}
+
+	public void appendDouble(int column, double value) {
+		columns[column].values().putDouble(value);
+	}
+
+	public void endRow() {
+		rows++;
+		for (Column column : columns) {
+			column.endRow();
+		}
+	}
+
+	// Rows appended since the last batch
+	public int getRows() {
+		return rows;
+	}
+
+	public void writeBatch() throws IOException {
+		if (rows == 0) {
+			return;
+		}
+		// Per column a field node and its validity and offsets or values buffers,
+		// then the child node and buffers of lists. No validity buffers are
+		// needed as there are no nulls.
+		int nodeCount = 0;
+		for (Column column : columns) {
+			nodeCount += column.type.list ? 2 : 1;
+		}
+		long[] nodes = new long[2 * nodeCount];
+		long[] buffers = new long[4 * nodeCount];
+		int node = 0;
+		long bodyLength = 0;
+		for (Column column : columns) {
+			int[] lengths = column.type.list
+					? new int[] { Integer.BYTES * (rows + 1), column.values.position() }
+					: new int[] { column.values.position() };
+			int[] elements = column.type.list
+					? new int[] { rows, column.values.position() / column.type.width }
+					: new int[] { rows };
+			for (int i = 0; i < lengths.length; i++) {
+				nodes[2 * node] = elements[i];
+				buffers[4 * node] = bodyLength;
+				buffers[4 * node + 2] = bodyLength;
+				buffers[4 * node + 3] = lengths[i];
+				bodyLength += align(lengths[i]);
+				node++;
+			}
+		}
+
+		ByteBuffer body = ByteBuffer.allocate((int) bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+		for (Column column : columns) {
+			if (column.type.list) {
+				column.offsets.flip();
+				body.put(column.offsets);
+				body.position(align(body.position()));
+			}
+			column.values.flip();
+			body.put(column.values);
+			body.position(align(body.position()));
+			column.clear();
+		}
+		body.flip();
+		writeMessage(recordBatch(rows, nodes, buffers, bodyLength), body);
+		rows = 0;
+	}
+
+	// Writes the pending rows and the end of stream marker
+	@Override
+	public void close() throws IOException {
+		try {
+			writeBatch();
+			ByteBuffer end = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			end.putInt(CONTINUATION).putInt(0).flip();
+			write(end);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void writeMessage(byte[] metadata, ByteBuffer body) throws IOException {
+		ByteBuffer prefix = ByteBuffer.allocate(2 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		prefix.putInt(CONTINUATION).putInt(metadata.length).flip();
+		write(prefix);
+		write(ByteBuffer.wrap(metadata));
+		write(body);
+	}
+
+	private void write(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	private byte[] schema() {
+		FlatBufferWriter writer = new FlatBufferWriter();
+		int[] message = message(writer, HEADER_SCHEMA, 0);
+		// endianness, fields, custom_metadata, features
+		int[] schema = writer.table(2, 4, 0, 0);
+		writer.reference(message[2], schema[4]);
+		int fields = writer.referenceVector(columns.length);
+		writer.reference(schema[1], fields);
+		for (int i = 0; i < columns.length; i++) {
+			writer.reference(fields + Integer.BYTES * (i + 1), field(writer, names[i], columns[i].type));
+		}
+		return writer.finish(message[5]);
+	}
+
+	// Message table, the header reference is left to the caller
+	private static int[] message(FlatBufferWriter writer, byte headerType, long bodyLength) {
+		// version, header_type, header, bodyLength, custom_metadata
+		int[] message = writer.table(2, 1, 4, 8, 0);
+		writer.putShort(message[0], METADATA_VERSION_V5);
+		writer.putByte(message[1], headerType);
+		writer.putLong(message[3], bodyLength);
+		return message;
+	}
+
+	// Writes a field with its type and list item, returns the position of its table
+	private static int field(FlatBufferWriter writer, String name, ColumnType type) {
+		// name, nullable, type_type, type, dictionary, children, custom_metadata
+		int[] field = writer.table(4, 1, 1, 4, 0, 4, 0);
+		writer.putByte(field[2], type.list ? TYPE_LIST : type == ColumnType.FLOAT64 ? TYPE_FLOATING_POINT : TYPE_INT);
+		writer.reference(field[0], writer.string(name));
+		if (type.list) {
+			writer.reference(field[3], writer.table()[0]);
+		} else {
+			writer.reference(field[3], numericType(writer, type));
+		}
+		int children = writer.referenceVector(type.list ? 1 : 0);
+		writer.reference(field[5], children);
+		if (type.list) {
+			ColumnType item = type == ColumnType.INT32_LIST ? ColumnType.INT32 : ColumnType.FLOAT64;
+			writer.reference(children + Integer.BYTES, field(writer, "item", item));
+		}
+		return field[7];
+	}
+
+	private static int numericType(FlatBufferWriter writer, ColumnType type) {
+		if (type == ColumnType.FLOAT64) {
+			// precision
+			int[] floatingPoint = writer.table(2);
+			writer.putShort(floatingPoint[0], PRECISION_DOUBLE);
+			return floatingPoint[1];
+		}
+		// bitWidth, is_signed
+		int[] integer = writer.table(4, 1);
+		writer.putInt(integer[0], type.width * Byte.SIZE);
+		writer.putByte(integer[1], (byte) 1);
+		return integer[2];
+	}
+
+	private static byte[] recordBatch(int rows, long[] nodes, long[] buffers, long bodyLength) {
+		FlatBufferWriter writer = new FlatBufferWriter();
+		int[] message = message(writer, HEADER_RECORD_BATCH, bodyLength);
+		// length, nodes, buffers, compression, variadicBufferCounts
+		int[] recordBatch = writer.table(8, 4, 4, 0, 0);
+		writer.reference(message[2], recordBatch[5]);
+		writer.putLong(recordBatch[0], rows);
+		writer.reference(recordBatch[1], writer.longStructVector(nodes, 2));
+		writer.reference(recordBatch[2], writer.longStructVector(buffers, 2));
+		return writer.finish(message[5]);
+	}
+
+	private static int align(int length) {
+		return (length + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+	}
+
+	// Values of a column, plus the list offsets of list columns
+	private static class Column {
+		private final ColumnType type;
+		private ByteBuffer values = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+		private ByteBuffer offsets;
+
+		Column(ColumnType type) {
+			this.type = type;
+			if (type.list) {
+				offsets = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+				offsets.putInt(0);
+			}
+		}
+
+		// Values buffer with room for one more value
+		ByteBuffer values() {
+			values = ensure(values, type.width);
+			return values;
+		}
+
+		void endRow() {
+			if (type.list) {
+				offsets = ensure(offsets, Integer.BYTES);
+				offsets.putInt(values.position() / type.width);
+			}
+		}
+
+		void clear() {
+			values.clear();
+			if (type.list) {
+				offsets.clear();
+				offsets.putInt(0);
+			}
+		}
+
+		private static ByteBuffer ensure(ByteBuffer buffer, int bytes) {
+			if (buffer.remaining() >= bytes) {
+				return buffer;
+			}
+			ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.flip();
+			return larger.put(buffer);
+		}
+	}
+}
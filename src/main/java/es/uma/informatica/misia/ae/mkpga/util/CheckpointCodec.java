@@ -0,0 +1,228 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
+import es.uma.informatica.misia.ae.mkpga.problem.EvaluationState;
+import es.uma.informatica.misia.ae.mkpga.problem.Individual;
+
+/**
+ * Binary format of the checkpoints saved through a {@link CheckpointWriter}:
+ * a versioned header, the parameters of the run, the random generator state,
+ * the loop counters, the population and the best solution, an optional
+ * fitness cache and the metrics.
+ *
+ * A checkpoint is only decoded with the parameters it was written with,
+ * except the variable ones, which may differ between the runs.
+ */
+public final class CheckpointCodec {
+	private static final int MAGIC = 0x4D4B5043;
+	private static final int VERSION = 4;
+
+	// Part of the state with its own binary form, such as the fitness cache
+	public interface Section {
+		void write(DataOutput out) throws IOException;
+	}
+
+	public interface SectionReader<T extends Section> {
+		T read(DataInput in) throws IOException;
+	}
+
+	/**
+	 * Loop state stored in a checkpoint. The random generator and the metrics
+	 * collector are restored in place instead.
+	 */
+	public static final class State<C extends Section> {
+		private final Map<String, Double> parameters;
+		private final long functionEvaluations;
+		private final int consecutiveCacheHits;
+		private final int consecutiveDuplicates;
+		private final int lastImprovementEvaluations;
+		private final List<Individual> population;
+		private final Individual best;
+		private final C cache;
+
+		// The cache may be null
+		public State(Map<String, Double> parameters, long functionEvaluations, int consecutiveCacheHits,
+				int consecutiveDuplicates, int lastImprovementEvaluations, List<Individual> population,
+				Individual best, C cache) {
+			this.parameters = parameters;
+			this.functionEvaluations = functionEvaluations;
+			this.consecutiveCacheHits = consecutiveCacheHits;
+			this.consecutiveDuplicates = consecutiveDuplicates;
+			this.lastImprovementEvaluations = lastImprovementEvaluations;
+			this.population = population;
+			this.best = best;
+			this.cache = cache;
+		}
+
+		public Map<String, Double> getParameters() {
+			return parameters;
+		}
+
+		public long getFunctionEvaluations() {
+			return functionEvaluations;
+		}
+
+		public int getConsecutiveCacheHits() {
+			return consecutiveCacheHits;
+		}
+
+		public int getConsecutiveDuplicates() {
+			return consecutiveDuplicates;
+		}
+
+		public int getLastImprovementEvaluations() {
+			return lastImprovementEvaluations;
+		}
+
+		public List<Individual> getPopulation() {
+			return population;
+		}
+
+		public Individual getBest() {
+			return best;
+		}
+
+		public C getCache() {
+			return cache;
+		}
+	}
+
+	private CheckpointCodec() {
+	}
+
+	public static byte[] encode(State<?> state, RestorableRandom random, MetricsCollector metricsCollector) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(state.parameters.size());
+			for (Map.Entry<String, Double> parameter : state.parameters.entrySet()) {
+				out.writeUTF(parameter.getKey());
+				out.writeDouble(parameter.getValue());
+			}
+			random.writeState(out);
+			out.writeLong(state.functionEvaluations);
+			out.writeInt(state.consecutiveCacheHits);
+			out.writeInt(state.consecutiveDuplicates);
+			out.writeInt(state.lastImprovementEvaluations);
+
+			// The best solution is written once, as an index when it is in the population
+			int bestIndex = -1;
+			out.writeInt(state.population.size());
+			for (int i = 0; i < state.population.size(); i++) {
+				writeIndividual(out, state.population.get(i));
+				if (state.population.get(i) == state.best) {
+					bestIndex = i;
+				}
+			}
+			out.writeInt(bestIndex);
+			if (bestIndex < 0) {
+				writeIndividual(out, state.best);
+			}
+
+			out.writeBoolean(state.cache != null);
+			if (state.cache != null) {
+				state.cache.write(out);
+			}
+			metricsCollector.writeState(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error encoding checkpoint", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restores the random generator and the metrics collector from the
+	 * checkpoint, and returns the rest of the state with the parameters it was
+	 * written with. Throws IllegalStateException when the parameters that are
+	 * not variable differ.
+	 */
+	public static <C extends Section> State<C> decode(byte[] checkpoint, Map<String, Double> parameters,
+			Set<String> variableParameters, RestorableRandom random, MetricsCollector metricsCollector,
+			SectionReader<C> cacheReader) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a checkpoint file");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported checkpoint version " + version);
+			}
+			Map<String, Double> checkpointParameters = new HashMap<>();
+			int parameterCount = in.readInt();
+			for (int i = 0; i < parameterCount; i++) {
+				checkpointParameters.put(in.readUTF(), in.readDouble());
+			}
+			Map<String, Double> currentParameters = new HashMap<>(parameters);
+			Map<String, Double> fixedParameters = new HashMap<>(checkpointParameters);
+			currentParameters.keySet().removeAll(variableParameters);
+			fixedParameters.keySet().removeAll(variableParameters);
+			if (!currentParameters.equals(fixedParameters)) {
+				throw new IllegalStateException("The checkpoint was written with other parameters");
+			}
+
+			random.readState(in);
+			long functionEvaluations = in.readLong();
+			int consecutiveCacheHits = in.readInt();
+			int consecutiveDuplicates = in.readInt();
+			int lastImprovementEvaluations = in.readInt();
+
+			List<Individual> population = new ArrayList<>();
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				population.add(readIndividual(in));
+			}
+			int bestIndex = in.readInt();
+			Individual best = bestIndex >= 0 ? population.get(bestIndex) : readIndividual(in);
+
+			C cache = in.readBoolean() ? cacheReader.read(in) : null;
+			metricsCollector.readState(in, best);
+			return new State<>(checkpointParameters, functionEvaluations, consecutiveCacheHits, consecutiveDuplicates,
+					lastImprovementEvaluations, population, best, cache);
+		}
+	}
+
+	private static void writeIndividual(DataOutput out, Individual individual) throws IOException {
+		if (!(individual instanceof BinaryString)) {
+			throw new IllegalStateException("Checkpoints are only available for binary strings");
+		}
+		BinaryString binaryString = (BinaryString) individual;
+		out.writeInt(binaryString.getLength());
+		for (long word : binaryString.getWords()) {
+			out.writeLong(word);
+		}
+		out.writeDouble(binaryString.getFitness());
+		EvaluationState state = binaryString.getEvaluationState();
+		out.writeBoolean(state != null);
+		if (state != null) {
+			state.write(out);
+		}
+	}
+
+	private static Individual readIndividual(DataInput in) throws IOException {
+		BinaryString binaryString = new BinaryString(in.readInt());
+		long[] words = binaryString.getWords();
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		binaryString.setFitness(in.readDouble());
+		if (in.readBoolean()) {
+			binaryString.setEvaluationState(EvaluationState.read(in));
+		}
+		return binaryString;
+	}
+}
@@ -0,0 +1,97 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes checkpoints to a file on a background thread, so the algorithm only
+ * pays for encoding its state in memory. Each checkpoint is written to a
+ * temporary file and atomically moved over the previous one, so a kill at any
+ * time leaves a complete checkpoint. When checkpoints arrive faster than they
+ * are written, only the latest one is kept.
+ */
+public class CheckpointWriter implements AutoCloseable {
+	private final Path path;
+	private final Path temporaryPath;
+	private final ExecutorService executor;
+	private final AtomicReference<byte[]> pending = new AtomicReference<>();
+	private volatile IOException failure;
+
+	public CheckpointWriter(String filePath) {
+		this.path = Paths.get(filePath);
+		this.temporaryPath = Paths.get(filePath + ".tmp");
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "checkpoint-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public String getFilePath() {
+		return path.toString();
+	}
+
+	public boolean exists() {
+		return Files.exists(path);
+	}
+
+	public byte[] read() throws IOException {
+		return Files.readAllBytes(path);
+	}
+
+	// Queue the encoded state for writing, replacing a checkpoint not written yet
+	public void write(byte[] checkpoint) {
+		if (pending.getAndSet(checkpoint) == null) {
+			executor.execute(this::writePending);
+		}
+	}
+
+	private void writePending() {
+		byte[] checkpoint = pending.getAndSet(null);
+		if (checkpoint == null) {
+			return;
+		}
+		try {
+			Files.write(temporaryPath, checkpoint);
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * Waits for the pending checkpoint, and deletes the file when the run is
+	 * complete so it is not resumed again.
+	 */
+	public void close(boolean delete) {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			if (delete) {
+				Files.deleteIfExists(path);
+			}
+		} catch (IOException e) {
+			failure = e;
+		}
+		if (failure != null) {
+			throw new UncheckedIOException("Error writing checkpoint " + path, failure);
+		}
+	}
+
+	@Override
+	public void close() {
+		close(false);
+	}
+}
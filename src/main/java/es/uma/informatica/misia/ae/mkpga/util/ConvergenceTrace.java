@@ -0,0 +1,119 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.util.Arrays;
+
+/**
+ * In-memory trace stored in parallel primitive arrays, so a record costs 24
+ * bytes and no objects. The diversity columns are only allocated once a record
+ * has a diversity, adding 16 bytes per record.
+ */
+public class ConvergenceTrace implements TraceSink {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] generationNumbers = new int[INITIAL_CAPACITY];
+	private double[] fitness = new double[INITIAL_CAPACITY];
+	private long[] evaluations = new long[INITIAL_CAPACITY];
+	private long[] nanoTimes = new long[INITIAL_CAPACITY];
+	private double[] diversities;
+	private double[] entropies;
+	private int size;
+
+	@Override
+	public void append(int generationNumber, double fitness, long evaluations, long nanoTime) {
+		append(generationNumber, fitness, evaluations, nanoTime, Double.NaN, Double.NaN);
+	}
+
+	@Override
+	public void updateLast(int generationNumber, long evaluations, long nanoTime) {
+		updateLast(generationNumber, evaluations, nanoTime, Double.NaN, Double.NaN);
+	}
+
+	@Override
+	public void append(int generationNumber, double fitness, long evaluations, long nanoTime, double diversity,
+			double entropy) {
+		if (size == generationNumbers.length) {
+			int capacity = size * 2;
+			generationNumbers = Arrays.copyOf(generationNumbers, capacity);
+			this.fitness = Arrays.copyOf(this.fitness, capacity);
+			this.evaluations = Arrays.copyOf(this.evaluations, capacity);
+			nanoTimes = Arrays.copyOf(nanoTimes, capacity);
+			if (diversities != null) {
+				diversities = Arrays.copyOf(diversities, capacity);
+				entropies = Arrays.copyOf(entropies, capacity);
+			}
+		}
+		generationNumbers[size] = generationNumber;
+		this.fitness[size] = fitness;
+		this.evaluations[size] = evaluations;
+		nanoTimes[size] = nanoTime;
+		size++;
+		setDiversity(diversity, entropy);
+	}
+
+	@Override
+	public void updateLast(int generationNumber, long evaluations, long nanoTime, double diversity, double entropy) {
+		generationNumbers[size - 1] = generationNumber;
+		this.evaluations[size - 1] = evaluations;
+		nanoTimes[size - 1] = nanoTime;
+		setDiversity(diversity, entropy);
+	}
+
+	private void setDiversity(double diversity, double entropy) {
+		if (diversities == null) {
+			if (Double.isNaN(diversity) && Double.isNaN(entropy)) {
+				return;
+			}
+			diversities = new double[generationNumbers.length];
+			entropies = new double[generationNumbers.length];
+			Arrays.fill(diversities, 0, size - 1, Double.NaN);
+			Arrays.fill(entropies, 0, size - 1, Double.NaN);
+		}
+		diversities[size - 1] = diversity;
+		entropies[size - 1] = entropy;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int getGenerationNumber(int index) {
+		return generationNumbers[index];
+	}
+
+	public double getFitness(int index) {
+		return fitness[index];
+	}
+
+	public long getEvaluations(int index) {
+		return evaluations[index];
+	}
+
+	public long getNanoTime(int index) {
+		return nanoTimes[index];
+	}
+
+	public boolean hasDiversity() {
+		return diversities != null;
+	}
+
+	// Mean normalized Hamming distance of the population, NaN when it was not traced
+	public double getDiversity(int index) {
+		return diversities == null ? Double.NaN : diversities[index];
+	}
+
+	public double getEntropy(int index) {
+		return entropies == null ? Double.NaN : entropies[index];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append('(').append(generationNumbers[i]).append(", ").append(fitness[i]).append(')');
+		}
+		return sb.append(']').toString();
+	}
+}
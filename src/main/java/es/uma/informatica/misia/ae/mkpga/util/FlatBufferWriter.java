@@ -0,0 +1,151 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal FlatBuffers writer, enough for the metadata of
+ * {@link ArrowStreamWriter}. Objects are laid out front to back in the order
+ * they are written, each vtable just before its table, and references are
+ * patched once their target is written. FlatBuffers only requires references
+ * to point forward, so every object must be written after the ones
+ * referencing it.
+ */
+class FlatBufferWriter {
+	private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+	FlatBufferWriter() {
+		// Reference to the root table
+		buffer.putInt(0);
+	}
+
+	int position() {
+		return buffer.position();
+	}
+
+	/**
+	 * Writes a table whose field i takes sizes[i] bytes, 0 for absent fields.
+	 * Returns the position of each field followed by the position of the table.
+	 * Fields are zero until set.
+	 */
+	int[] table(int... sizes) {
+		int[] offsets = new int[sizes.length];
+		int tableSize = Integer.BYTES;
+		int alignment = Integer.BYTES;
+		// Largest fields first keeps them aligned without gaps
+		for (int size = Long.BYTES; size > 0; size /= 2) {
+			for (int i = 0; i < sizes.length; i++) {
+				if (sizes[i] == size) {
+					tableSize = align(tableSize, size);
+					offsets[i] = tableSize;
+					tableSize += size;
+					alignment = Math.max(alignment, size);
+				}
+			}
+		}
+
+		pad(Short.BYTES, 0);
+		int vtable = position();
+		reserve(Short.BYTES * (2 + sizes.length));
+		buffer.putShort(vtable, (short) (Short.BYTES * (2 + sizes.length)));
+		buffer.putShort(vtable + Short.BYTES, (short) tableSize);
+		for (int i = 0; i < sizes.length; i++) {
+			buffer.putShort(vtable + Short.BYTES * (2 + i), (short) offsets[i]);
+		}
+
+		pad(alignment, 0);
+		int table = position();
+		reserve(tableSize);
+		buffer.putInt(table, table - vtable);
+		int[] fields = new int[sizes.length + 1];
+		for (int i = 0; i < sizes.length; i++) {
+			fields[i] = sizes[i] > 0 ? table + offsets[i] : -1;
+		}
+		fields[sizes.length] = table;
+		return fields;
+	}
+
+	// Vector of count references, returns its position, element i is at position + 4 * (i + 1)
+	int referenceVector(int count) {
+		pad(Integer.BYTES, 0);
+		int vector = position();
+		reserve(Integer.BYTES * (1 + count));
+		buffer.putInt(vector, count);
+		return vector;
+	}
+
+	// Vector of structs made of longs, each struct is structLongs consecutive values
+	int longStructVector(long[] values, int structLongs) {
+		pad(Long.BYTES, Integer.BYTES);
+		int vector = position();
+		reserve(Integer.BYTES + Long.BYTES * values.length);
+		buffer.putInt(vector, values.length / structLongs);
+		for (int i = 0; i < values.length; i++) {
+			buffer.putLong(vector + Integer.BYTES + Long.BYTES * i, values[i]);
+		}
+		return vector;
+	}
+
+	int string(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		pad(Integer.BYTES, 0);
+		int string = position();
+		// Strings are null terminated
+		reserve(Integer.BYTES + bytes.length + 1);
+		buffer.putInt(string, bytes.length);
+		for (int i = 0; i < bytes.length; i++) {
+			buffer.put(string + Integer.BYTES + i, bytes[i]);
+		}
+		return string;
+	}
+
+	void reference(int field, int target) {
+		buffer.putInt(field, target - field);
+	}
+
+	void putByte(int field, byte value) {
+		buffer.put(field, value);
+	}
+
+	void putShort(int field, short value) {
+		buffer.putShort(field, value);
+	}
+
+	void putInt(int field, int value) {
+		buffer.putInt(field, value);
+	}
+
+	void putLong(int field, long value) {
+		buffer.putLong(field, value);
+	}
+
+	// Bytes of the buffer with the given root table, padded to a multiple of 8
+	byte[] finish(int root) {
+		reference(0, root);
+		pad(Long.BYTES, 0);
+		return Arrays.copyOf(buffer.array(), position());
+	}
+
+	// Pad so that the position plus the given prefix is a multiple of alignment
+	private void pad(int alignment, int prefix) {
+		reserve(align(position() + prefix, alignment) - position() - prefix);
+	}
+
+	// Zeroed bytes at the end of the buffer
+	private void reserve(int bytes) {
+		if (buffer.remaining() < bytes) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, position() + bytes))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+		buffer.position(position() + bytes);
+	}
+
+	private static int align(int position, int alignment) {
+		return (position + alignment - 1) / alignment * alignment;
+	}
+}
@@ -0,0 +1,72 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The 48-bit linear congruential generator of java.util.Random with a plain
+ * state field: for a given seed it returns exactly the same sequence, which
+ * keeps the seeded runs unchanged. The cached second value of nextGaussian is
+ * not part of the saved state.
+ */
+public class LinearCongruentialRandom extends RestorableRandom {
+	private static final long serialVersionUID = 1L;
+
+	private static final long MULTIPLIER = 0x5DEECE66DL;
+	private static final long ADDEND = 0xBL;
+	private static final long MASK = (1L << 48) - 1;
+
+	private long state;
+
+	public LinearCongruentialRandom(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		super.setSeed(seed);
+		state = (seed ^ MULTIPLIER) & MASK;
+	}
+
+	@Override
+	protected int next(int bits) {
+		state = (state * MULTIPLIER + ADDEND) & MASK;
+		return (int) (state >>> (48 - bits));
+	}
+
+	// Seeded from nextLong, like the per-thread java.util.Random it replaces
+	@Override
+	public RestorableRandom split() {
+		return new LinearCongruentialRandom(nextLong());
+	}
+
+	/**
+	 * Same bits as calling nextInt(2) for every gene, which is what older runs
+	 * did, but without the calls.
+	 */
+	@Override
+	public void nextBits(long[] words, int n) {
+		long s = state;
+		for (int w = 0; w < words.length; w++) {
+			int bits = Math.min(64, n - (w << 6));
+			long word = 0;
+			for (int i = 0; i < bits; i++) {
+				s = (s * MULTIPLIER + ADDEND) & MASK;
+				word |= (s >>> 47) << i;
+			}
+			words[w] = word;
+		}
+		state = s;
+	}
+
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(state);
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		state = in.readLong() & MASK;
+	}
+}
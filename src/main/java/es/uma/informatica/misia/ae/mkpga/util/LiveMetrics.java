@@ -0,0 +1,233 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Live view of the runs in progress of this process. Once started, every run
+ * registers its {@link MetricsCollector} while it is running, which is
+ * exposed as a {@link RunMetricsMXBean} and, with a port, in the Prometheus
+ * text format at http://127.0.0.1:<port>/metrics.
+ * 
+ * Scrapes only read the striped counters and volatile snapshots published by
+ * the runs, so they never block the algorithm.
+ */
+public class LiveMetrics {
+	public static final String PORT_ENV = "METRICS_PORT";
+	public static final String OBJECT_NAME = "es.uma.informatica.misia.ae.mkpga:type=Run,name=";
+	public static final String PATH = "/metrics";
+
+	private static final Map<Integer, Run> runs = new ConcurrentSkipListMap<>();
+	private static final AtomicInteger ids = new AtomicInteger();
+	private static volatile boolean enabled;
+	private static HttpServer server;
+
+	private LiveMetrics() {
+	}
+
+	/**
+	 * Starts registering runs, and serving them over HTTP on the loopback
+	 * interface when the port is positive.
+	 */
+	public static synchronized void start(int port) throws IOException {
+		enabled = true;
+		if (port > 0 && server == null) {
+			server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+			server.createContext(PATH, LiveMetrics::handle);
+			server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "live-metrics");
+				thread.setDaemon(true);
+				return thread;
+			}));
+			server.start();
+		}
+	}
+
+	// Start from the METRICS_PORT environment variable, if set
+	public static void startFromEnvironment() throws IOException {
+		String port = System.getenv(PORT_ENV);
+		if (port != null) {
+			start(Integer.parseInt(port));
+		}
+	}
+
+	public static synchronized void stop() {
+		enabled = false;
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Registers a running collector with extra Prometheus labels such as
+	 * island="0", and returns its id, or -1 when live metrics are not started.
+	 */
+	public static int register(MetricsCollector metricsCollector, String labels) {
+		if (!enabled) {
+			return -1;
+		}
+		int id = ids.incrementAndGet();
+		Run run = new Run(id, labels, metricsCollector);
+		runs.put(id, run);
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(run, new ObjectName(OBJECT_NAME + id));
+		} catch (JMException e) {
+			System.err.println("Error registering run metrics: " + e.getMessage());
+		}
+		return id;
+	}
+
+	public static void unregister(int id) {
+		if (runs.remove(id) == null) {
+			return;
+		}
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME + id));
+		} catch (JMException e) {
+			System.err.println("Error unregistering run metrics: " + e.getMessage());
+		}
+	}
+
+	// Runs in progress in the Prometheus text exposition format
+	public static String scrape() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("# HELP mkpga_runs Runs in progress.\n# TYPE mkpga_runs gauge\n");
+		sb.append("mkpga_runs ").append(runs.size()).append('\n');
+		gauge(sb, "mkpga_best_fitness", "Best fitness found so far.", Run::getBestFitness);
+		gauge(sb, "mkpga_optimal_value", "Optimal value of the problem instance.", Run::getOptimalValue);
+		gauge(sb, "mkpga_gap", "Relative gap between the best fitness and the optimal value.", Run::getGap);
+		counter(sb, "mkpga_evaluations_total", "Function evaluations.", Run::getEvaluations);
+		counter(sb, "mkpga_generations_total", "Generations.", Run::getGenerations);
+		gauge(sb, "mkpga_evaluations_per_second", "Mean evaluation rate since the start of the run.",
+				Run::getEvaluationsPerSecond);
+		gauge(sb, "mkpga_population_diversity", "Mean normalized Hamming distance between individuals.",
+				Run::getDiversity);
+		gauge(sb, "mkpga_population_entropy", "Mean binary entropy of the loci, with diversity tracking.",
+				Run::getEntropy);
+		gauge(sb, "mkpga_elapsed_seconds", "Time since the start of the run.", Run::getElapsedSeconds);
+		return sb.toString();
+	}
+
+	private static void gauge(StringBuilder sb, String name, String help, ToDoubleFunction<Run> value) {
+		metric(sb, name, help, "gauge", value);
+	}
+
+	private static void counter(StringBuilder sb, String name, String help, ToDoubleFunction<Run> value) {
+		metric(sb, name, help, "counter", value);
+	}
+
+	private static void metric(StringBuilder sb, String name, String help, String type, ToDoubleFunction<Run> value) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		for (Run run : runs.values()) {
+			sb.append(name).append("{run=\"").append(run.id).append('"');
+			if (!run.labels.isEmpty()) {
+				sb.append(',').append(run.labels);
+			}
+			sb.append("} ").append(format(value.applyAsDouble(run))).append('\n');
+		}
+	}
+
+	private static String format(double value) {
+		if (Double.isNaN(value)) {
+			return "NaN";
+		}
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return String.valueOf((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	private static void handle(HttpExchange exchange) throws IOException {
+		byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static class Run implements RunMetricsMXBean {
+		private final int id;
+		private final String labels;
+		private final MetricsCollector metricsCollector;
+
+		Run(int id, String labels, MetricsCollector metricsCollector) {
+			this.id = id;
+			this.labels = labels;
+			this.metricsCollector = metricsCollector;
+		}
+
+		@Override
+		public String getLabels() {
+			return labels;
+		}
+
+		@Override
+		public double getBestFitness() {
+			return metricsCollector.getBestFitness();
+		}
+
+		@Override
+		public double getOptimalValue() {
+			return metricsCollector.getProblem().getOptimalValue();
+		}
+
+		@Override
+		public double getGap() {
+			double optimalValue = getOptimalValue();
+			return optimalValue > 0 ? (optimalValue - getBestFitness()) / optimalValue : Double.NaN;
+		}
+
+		@Override
+		public long getEvaluations() {
+			return metricsCollector.getNumberOfEvaluations();
+		}
+
+		@Override
+		public long getGenerations() {
+			return metricsCollector.getNumberOfGenerations();
+		}
+
+		@Override
+		public double getEvaluationsPerSecond() {
+			double elapsed = getElapsedSeconds();
+			return elapsed > 0 ? getEvaluations() / elapsed : 0;
+		}
+
+		@Override
+		public double getDiversity() {
+			return metricsCollector.getDiversity();
+		}
+
+		@Override
+		public double getEntropy() {
+			return metricsCollector.getEntropy();
+		}
+
+		@Override
+		public double getElapsedSeconds() {
+			return metricsCollector.getExecutionTime() / 1000.0;
+		}
+	}
+}
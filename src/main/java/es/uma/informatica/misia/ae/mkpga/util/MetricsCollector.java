@@ -4,84 +4,315 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializer;
+import es.uma.informatica.misia.ae.mkpga.problem.BinaryString;
 import es.uma.informatica.misia.ae.mkpga.problem.Individual;
 import es.uma.informatica.misia.ae.mkpga.problem.Problem;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Collects the trace and counters of a run. The counters are striped
+ * {@link LongAdder}s so worker threads of an asynchronous run can update them
+ * without contention, the trace itself is only appended to by one thread at a
+ * time.
+ * 
+ * The trace is kept in a compact {@link ConvergenceTrace}, or streamed to a
+ * {@link TraceWriter} so long runs use constant memory. With a trace interval
+ * greater than one only every n-th generation and the last one are recorded.
+ * When the diversity is traced, every record also holds the last diversity
+ * and entropy published by the algorithm.
+ */
 public class MetricsCollector {
+	public static final String TRACE_INTERVAL_PARAM = "traceInterval";
+
 	private Problem problem;
 	private Map<String, Double> parameters;
-	private List<Map<String, Object>> generationBestIndividuals;
-	private long startTime;
-	private long endTime;
-	private int numberOfEvaluations;
-	private int numberOfGenerations;
+	// Trace of best fitness values, individuals may be reused by the algorithm
+	private ConvergenceTrace convergenceTrace;
+	private TraceWriter traceWriter;
+	private TraceSink trace;
+	private final int traceInterval;
+	// Run-length compression state of the trace
+	private int traceSize;
+	private int lastTraceGenerationNumber = -1;
+	private double lastTraceFitness;
+	private double secondToLastTraceFitness;
+	private Individual bestIndividual;
+	// Snapshots read by LiveMetrics from other threads
+	private volatile double bestFitness = Double.NaN;
+	private volatile double diversity = Double.NaN;
+	private volatile double entropy = Double.NaN;
+	private boolean diversityTraced;
+	private volatile long startTime;
+	private long startNanoTime;
+	private volatile long endTime;
+	private final LongAdder numberOfEvaluations;
+	private final LongAdder numberOfGenerations;
+	private final LongAdder cacheHits;
+	private final LongAdder cacheMisses;
+	private final LongAdder duplicatesRejected;
+	private List<MetricsCollector> islandMetrics;
+	private List<MetricsCollector> portfolioMetrics;
+	private List<Integer> portfolioRounds;
+	private PhaseProfiler phaseProfiler;
 
 	public MetricsCollector(Problem problem, Map<String, Double> parameters) {
 		this.problem = problem;
 		this.parameters = parameters;
-		this.generationBestIndividuals = new ArrayList<>();
-		this.numberOfEvaluations = 0;
-		this.numberOfGenerations = 0;
+		this.convergenceTrace = new ConvergenceTrace();
+		this.trace = convergenceTrace;
+		this.traceInterval = Math.max(1, parameters.getOrDefault(TRACE_INTERVAL_PARAM, 1.0).intValue());
+		this.numberOfEvaluations = new LongAdder();
+		this.numberOfGenerations = new LongAdder();
+		this.cacheHits = new LongAdder();
+		this.cacheMisses = new LongAdder();
+		this.duplicatesRejected = new LongAdder();
+		this.islandMetrics = new ArrayList<>();
+		this.portfolioMetrics = new ArrayList<>();
+		this.portfolioRounds = new ArrayList<>();
+	}
+
+	/**
+	 * Streams the trace to the given writer instead of keeping it in memory. Must
+	 * be called before the run starts, the caller closes the writer.
+	 */
+	public void setTraceWriter(TraceWriter traceWriter) {
+		setTraceSink(traceWriter);
+		this.traceWriter = traceWriter;
+	}
+
+	// Send the trace to the given sink instead of keeping it in memory, must be called before the run starts
+	public void setTraceSink(TraceSink traceSink) {
+		this.traceWriter = null;
+		this.convergenceTrace = null;
+		this.trace = traceSink;
+	}
+
+	// Report the phase timings of the run with the metrics
+	public void setPhaseProfiler(PhaseProfiler phaseProfiler) {
+		this.phaseProfiler = phaseProfiler;
+	}
+
+	// Record the published diversity and entropy in the trace, must be called before the run starts
+	public void traceDiversity() {
+		this.diversityTraced = true;
+	}
+
+	public PhaseProfiler getPhaseProfiler() {
+		return phaseProfiler;
 	}
 
 	public void startTimer() {
 		this.startTime = System.currentTimeMillis();
+		this.startNanoTime = System.nanoTime();
 	}
 
-	public void stopTimer() {
+	// Also records the last generation when the trace is downsampled
+	public synchronized void stopTimer() {
 		this.endTime = System.currentTimeMillis();
+		int generationNumber = getNumberOfGenerations() - 1;
+		if (bestIndividual != null && generationNumber > lastTraceGenerationNumber) {
+			addTraceEntry(generationNumber, bestIndividual);
+		}
+	}
+
+	/**
+	 * Writes the counters, the elapsed time and the in-memory trace for a
+	 * checkpoint. A streamed trace is flushed and only its length and pending
+	 * record are included.
+	 */
+	public synchronized void writeState(DataOutput out) throws IOException {
+		out.writeLong(numberOfEvaluations.sum());
+		out.writeLong(numberOfGenerations.sum());
+		out.writeLong(cacheHits.sum());
+		out.writeLong(cacheMisses.sum());
+		out.writeLong(duplicatesRejected.sum());
+		out.writeLong(System.currentTimeMillis() - startTime);
+		out.writeLong(System.nanoTime() - startNanoTime);
+		out.writeInt(lastTraceGenerationNumber);
+		out.writeDouble(lastTraceFitness);
+		out.writeDouble(secondToLastTraceFitness);
+		out.writeInt(traceSize);
+		out.writeBoolean(traceWriter != null);
+		if (traceWriter != null) {
+			traceWriter.writeState(out);
+		}
+		int entries = convergenceTrace == null ? 0 : convergenceTrace.size();
+		out.writeInt(entries);
+		for (int i = 0; i < entries; i++) {
+			out.writeInt(convergenceTrace.getGenerationNumber(i));
+			out.writeDouble(convergenceTrace.getFitness(i));
+			out.writeLong(convergenceTrace.getEvaluations(i));
+			out.writeLong(convergenceTrace.getNanoTime(i));
+			out.writeDouble(convergenceTrace.getDiversity(i));
+			out.writeDouble(convergenceTrace.getEntropy(i));
+		}
+	}
+
+	/**
+	 * Restores the state written by writeState into a collector whose timer was
+	 * just started, so the elapsed time continues from the checkpoint. A
+	 * streamed trace continues its file, and the records of an in-memory trace
+	 * are replayed into the current sink.
+	 */
+	public synchronized void readState(DataInput in, Individual bestIndividual) throws IOException {
+		numberOfEvaluations.add(in.readLong());
+		numberOfGenerations.add(in.readLong());
+		cacheHits.add(in.readLong());
+		cacheMisses.add(in.readLong());
+		duplicatesRejected.add(in.readLong());
+		startTime -= in.readLong();
+		startNanoTime -= in.readLong();
+		lastTraceGenerationNumber = in.readInt();
+		lastTraceFitness = in.readDouble();
+		secondToLastTraceFitness = in.readDouble();
+		int savedTraceSize = in.readInt();
+		if (in.readBoolean()) {
+			if (traceWriter == null) {
+				throw new IllegalStateException(
+						"The checkpoint was written with a trace file, which must be set to resume it");
+			}
+			traceWriter.readState(in);
+		}
+		int entries = in.readInt();
+		for (int i = 0; i < entries; i++) {
+			int generationNumber = in.readInt();
+			double fitness = in.readDouble();
+			long evaluations = in.readLong();
+			long nanoTime = in.readLong();
+			double diversity = in.readDouble();
+			double entropy = in.readDouble();
+			trace.append(generationNumber, fitness, evaluations, nanoTime, diversity, entropy);
+		}
+		traceSize = savedTraceSize;
+		setBestIndividual(bestIndividual);
 	}
 
 	public void addGenerationBestIndividual(Individual generationBestIndividual) {
-		int generationNumber = numberOfGenerations;
+		int generationNumber = getNumberOfGenerations();
 		this.incrementGenerations();
+		if (generationNumber % traceInterval != 0) {
+			setBestIndividual(generationBestIndividual);
+			return;
+		}
+		addTraceEntry(generationNumber, generationBestIndividual);
+	}
 
-		if (!generationBestIndividuals.isEmpty()) {
-			// Get the last entry in the list
-			Map<String, Object> lastIndividualData = generationBestIndividuals
-					.get(generationBestIndividuals.size() - 1);
-			Individual lastIndividual = (Individual) lastIndividualData.get("bestIndividual");
-
-			// Check if the fitness is the same as the last entry
-			if (lastIndividual.getFitness() == generationBestIndividual.getFitness()) {
-				// Check if there is a second to last entry
-				if (generationBestIndividuals.size() != 1) {
-					Map<String, Object> secondToLastIndividualData = generationBestIndividuals
-							.get(generationBestIndividuals.size() - 2);
-					Individual secondToLastIndividual = (Individual) secondToLastIndividualData.get("bestIndividual");
-					// Check if the fitness is the same as the second to last entry
-					if (secondToLastIndividual.getFitness() == generationBestIndividual.getFitness()) {
-						// Update the last individual in the sequence
-						lastIndividualData.put("generationNumber", generationNumber);
-						lastIndividualData.put("bestIndividual", generationBestIndividual);
-
-						return;
-					}
-				}
-			}
+	/**
+	 * Records a new best individual found by an asynchronous run at the current
+	 * generation, without counting a generation. Together with the end of the
+	 * previous run of equal fitness values, this gives the same compressed trace
+	 * as reporting every generation. Improvements overtaken by a better one
+	 * recorded first are dropped, the trace interval does not apply.
+	 */
+	public synchronized void addBestIndividualImprovement(Individual improvedBestIndividual) {
+		if (bestIndividual != null && improvedBestIndividual.getFitness() <= bestIndividual.getFitness()) {
+			return;
+		}
+		int lastGenerationNumber = lastTraceGenerationNumber;
+		int generationNumber = Math.max(getNumberOfGenerations() - 1, lastGenerationNumber + 1);
+		if (generationNumber - 1 > lastGenerationNumber) {
+			addTraceEntry(generationNumber - 1, bestIndividual);
 		}
+		addTraceEntry(generationNumber, improvedBestIndividual);
+	}
 
-		// Add the current individual
-		Map<String, Object> individualData = new HashMap<>();
-		individualData.put("generationNumber", generationNumber);
-		individualData.put("bestIndividual", generationBestIndividual);
-		this.generationBestIndividuals.add(individualData);
+	// Extend the trace of an asynchronous run to its last generation
+	public synchronized void closeTrace(Individual finalBestIndividual) {
+		int generationNumber = getNumberOfGenerations() - 1;
+		if (generationNumber > lastTraceGenerationNumber) {
+			addTraceEntry(generationNumber, finalBestIndividual);
+		}
+	}
+
+	private void addTraceEntry(int generationNumber, Individual generationBestIndividual) {
+		double fitness = generationBestIndividual.getFitness();
+		long evaluations = numberOfEvaluations.sum();
+		long nanoTime = System.nanoTime() - startNanoTime;
+		double diversity = diversityTraced ? this.diversity : Double.NaN;
+		double entropy = diversityTraced ? this.entropy : Double.NaN;
+		lastTraceGenerationNumber = generationNumber;
+		setBestIndividual(generationBestIndividual);
+
+		// A run of equal fitness values keeps its first and last entries only
+		if (traceSize > 1 && lastTraceFitness == fitness && secondToLastTraceFitness == fitness) {
+			trace.updateLast(generationNumber, evaluations, nanoTime, diversity, entropy);
+			return;
+		}
+
+		trace.append(generationNumber, fitness, evaluations, nanoTime, diversity, entropy);
+		secondToLastTraceFitness = lastTraceFitness;
+		lastTraceFitness = fitness;
+		traceSize++;
+	}
+
+	private void setBestIndividual(Individual individual) {
+		bestIndividual = individual;
+		// Only publish changes, most generations do not improve
+		if (individual.getFitness() != bestFitness) {
+			bestFitness = individual.getFitness();
+		}
+	}
+
+	// Publish the diversity of the population for LiveMetrics and the trace, NaN when unknown
+	public void publishDiversity(double diversity, double entropy) {
+		this.diversity = diversity;
+		this.entropy = entropy;
+	}
+
+	/**
+	 * Adds the metrics of one island of an island model. Its evaluations are
+	 * added to the global counter, generations are only reported per island.
+	 */
+	public void addIslandMetrics(MetricsCollector islandMetricsCollector) {
+		this.islandMetrics.add(islandMetricsCollector);
+		this.numberOfEvaluations.add(islandMetricsCollector.numberOfEvaluations.sum());
+		this.cacheHits.add(islandMetricsCollector.cacheHits.sum());
+		this.cacheMisses.add(islandMetricsCollector.cacheMisses.sum());
+		this.duplicatesRejected.add(islandMetricsCollector.duplicatesRejected.sum());
+	}
 
+	/**
+	 * Adds the metrics of one configuration of a portfolio run and the number
+	 * of racing rounds it took part in. Its evaluations are added to the global
+	 * counter.
+	 */
+	public void addPortfolioMetrics(MetricsCollector memberMetricsCollector, int rounds) {
+		this.portfolioMetrics.add(memberMetricsCollector);
+		this.portfolioRounds.add(rounds);
+		this.numberOfEvaluations.add(memberMetricsCollector.numberOfEvaluations.sum());
+		this.cacheHits.add(memberMetricsCollector.cacheHits.sum());
+		this.cacheMisses.add(memberMetricsCollector.cacheMisses.sum());
+		this.duplicatesRejected.add(memberMetricsCollector.duplicatesRejected.sum());
 	}
 
 	public void incrementEvaluations() {
-		this.numberOfEvaluations++;
+		this.numberOfEvaluations.increment();
+	}
+
+	public void incrementCacheHits() {
+		this.cacheHits.increment();
+	}
+
+	public void incrementCacheMisses() {
+		this.cacheMisses.increment();
+	}
+
+	public void incrementDuplicatesRejected() {
+		this.duplicatesRejected.increment();
 	}
 
 	public void incrementGenerations() {
-		this.numberOfGenerations++;
+		this.numberOfGenerations.increment();
 	}
 
 	public long getExecutionTime() {
@@ -95,70 +326,213 @@ public class MetricsCollector {
 		return problem;
 	}
 
+	// Report other parameters, such as those of a resumed checkpoint
+	public void setParameters(Map<String, Double> parameters) {
+		this.parameters = parameters;
+	}
+
 	public Map<String, Double> getParameters() {
 		return parameters;
 	}
 
+	// Entries of the in-memory trace, empty when the trace is streamed
 	public List<Map<String, Object>> getGenerationBestIndividuals() {
+		List<Map<String, Object>> generationBestIndividuals = new ArrayList<>();
+		if (convergenceTrace == null) {
+			return generationBestIndividuals;
+		}
+		for (int i = 0; i < convergenceTrace.size(); i++) {
+			Map<String, Object> individualData = new HashMap<>();
+			individualData.put("generationNumber", convergenceTrace.getGenerationNumber(i));
+			individualData.put("bestIndividualFitness", convergenceTrace.getFitness(i));
+			individualData.put("numberOfEvaluations", convergenceTrace.getEvaluations(i));
+			individualData.put("nanoTime", convergenceTrace.getNanoTime(i));
+			if (convergenceTrace.hasDiversity()) {
+				individualData.put("diversity", convergenceTrace.getDiversity(i));
+				individualData.put("entropy", convergenceTrace.getEntropy(i));
+			}
+			generationBestIndividuals.add(individualData);
+		}
 		return generationBestIndividuals;
 	}
 
+	public ConvergenceTrace getConvergenceTrace() {
+		return convergenceTrace;
+	}
+
 	public Individual getBestIndividual() {
-		if (generationBestIndividuals.isEmpty()) {
-			return null;
-		}
-		return (Individual) generationBestIndividuals.get(generationBestIndividuals.size() - 1)
-				.get("bestIndividual");
+		return bestIndividual;
+	}
+
+	// Best fitness so far, safe to read from any thread
+	public double getBestFitness() {
+		return bestFitness;
+	}
+
+	public double getDiversity() {
+		return diversity;
+	}
+
+	public double getEntropy() {
+		return entropy;
+	}
+
+	public List<MetricsCollector> getIslandMetrics() {
+		return islandMetrics;
+	}
+
+	public List<MetricsCollector> getPortfolioMetrics() {
+		return portfolioMetrics;
 	}
 
 	public int getNumberOfEvaluations() {
-		return numberOfEvaluations;
+		return numberOfEvaluations.intValue();
 	}
 
 	public int getNumberOfGenerations() {
-		return numberOfGenerations;
+		return numberOfGenerations.intValue();
 	}
 
-	public void writeMetricsToJson(String filePath) {
-		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	public long getDuplicatesRejected() {
+		return duplicatesRejected.sum();
+	}
+
+	public void writeMetricsToJson(String filePath) throws IOException {
+		Gson gson = new GsonBuilder().setPrettyPrinting()
+				.registerTypeAdapter(BinaryString.class, binaryStringSerializer())
+				.create();
 		JsonObject json = new JsonObject();
 
 		// Adding data to the JSON object
-		JsonArray generationBestIndividualsArray = new JsonArray();
-		for (Map<String, Object> individualData : generationBestIndividuals) {
-			JsonObject individualJson = new JsonObject();
-			individualJson.addProperty("generationNumber", (Integer) individualData.get("generationNumber"));
-			Individual individual = (Individual) individualData.get("bestIndividual");
-			individualJson.addProperty("bestIndividualFitness", (Double) individual.getFitness());
-			generationBestIndividualsArray.add(individualJson);
-		}
 		json.add("bestIndividual", gson.toJsonTree(getBestIndividual()));
 		json.addProperty("executionTime", getExecutionTime());
-		json.addProperty("numberOfEvaluations", numberOfEvaluations);
-		json.addProperty("numberOfGenerations", numberOfGenerations);
+		json.addProperty("numberOfEvaluations", getNumberOfEvaluations());
+		json.addProperty("numberOfGenerations", getNumberOfGenerations());
+		if (getCacheHits() + getCacheMisses() > 0) {
+			json.addProperty("cacheHits", getCacheHits());
+			json.addProperty("cacheMisses", getCacheMisses());
+		}
+		if (getDuplicatesRejected() > 0) {
+			json.addProperty("duplicatesRejected", getDuplicatesRejected());
+		}
 		json.add("problem", gson.toJsonTree(problem));
 		json.add("parameters", gson.toJsonTree(parameters));
-		json.add("generationBestIndividuals", generationBestIndividualsArray);
+		if (traceWriter != null) {
+			json.addProperty("traceFile", traceWriter.getFilePath());
+		} else {
+			json.add("generationBestIndividuals", generationBestIndividualsToJson());
+		}
+		if (phaseProfiler != null) {
+			json.add("profile", phaseProfilerToJson());
+		}
+		if (!islandMetrics.isEmpty()) {
+			JsonArray islandsArray = new JsonArray();
+			for (MetricsCollector island : islandMetrics) {
+				JsonObject islandJson = new JsonObject();
+				islandJson.addProperty("bestIndividualFitness", island.getBestIndividual().getFitness());
+				islandJson.addProperty("executionTime", island.getExecutionTime());
+				islandJson.addProperty("numberOfEvaluations", island.getNumberOfEvaluations());
+				islandJson.addProperty("numberOfGenerations", island.getNumberOfGenerations());
+				islandJson.add("generationBestIndividuals", island.generationBestIndividualsToJson());
+				islandsArray.add(islandJson);
+			}
+			json.add("islands", islandsArray);
+		}
+		if (!portfolioMetrics.isEmpty()) {
+			JsonArray portfolioArray = new JsonArray();
+			for (int i = 0; i < portfolioMetrics.size(); i++) {
+				MetricsCollector member = portfolioMetrics.get(i);
+				JsonObject memberJson = new JsonObject();
+				memberJson.add("parameters", gson.toJsonTree(member.getParameters()));
+				memberJson.addProperty("rounds", portfolioRounds.get(i));
+				memberJson.addProperty("bestIndividualFitness", member.getBestIndividual().getFitness());
+				memberJson.addProperty("numberOfEvaluations", member.getNumberOfEvaluations());
+				memberJson.addProperty("numberOfGenerations", member.getNumberOfGenerations());
+				memberJson.add("generationBestIndividuals", member.generationBestIndividualsToJson());
+				portfolioArray.add(memberJson);
+			}
+			json.add("portfolio", portfolioArray);
+		}
 
 		// Writing JSON to file
 		try (FileWriter file = new FileWriter(filePath)) {
 			gson.toJson(json, file);
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 	}
 
+	private JsonArray generationBestIndividualsToJson() {
+		JsonArray generationBestIndividualsArray = new JsonArray();
+		if (convergenceTrace == null) {
+			return generationBestIndividualsArray;
+		}
+		for (int i = 0; i < convergenceTrace.size(); i++) {
+			JsonObject individualJson = new JsonObject();
+			individualJson.addProperty("generationNumber", convergenceTrace.getGenerationNumber(i));
+			individualJson.addProperty("bestIndividualFitness", convergenceTrace.getFitness(i));
+			// NaN is not valid JSON, a population of one has no diversity
+			if (!Double.isNaN(convergenceTrace.getDiversity(i))) {
+				individualJson.addProperty("diversity", convergenceTrace.getDiversity(i));
+			}
+			if (!Double.isNaN(convergenceTrace.getEntropy(i))) {
+				individualJson.addProperty("entropy", convergenceTrace.getEntropy(i));
+			}
+			generationBestIndividualsArray.add(individualJson);
+		}
+		return generationBestIndividualsArray;
+	}
+
+	private JsonObject phaseProfilerToJson() {
+		JsonObject profileJson = new JsonObject();
+		profileJson.addProperty("evaluationsPerSecond", phaseProfiler.getEvaluationsPerSecond());
+		profileJson.addProperty("allocatedBytes", phaseProfiler.getAllocatedBytes());
+		profileJson.addProperty("allocatedBytesPerSecond", phaseProfiler.getAllocatedBytesPerSecond());
+		JsonObject phasesJson = new JsonObject();
+		for (PhaseProfiler.Phase phase : PhaseProfiler.Phase.values()) {
+			LatencyHistogram histogram = phaseProfiler.getHistogram(phase);
+			JsonObject phaseJson = new JsonObject();
+			phaseJson.addProperty("count", histogram.getCount());
+			phaseJson.addProperty("totalNanos", histogram.getTotal());
+			phaseJson.addProperty("meanNanos", histogram.getMean());
+			phaseJson.addProperty("p50Nanos", histogram.getPercentile(50));
+			phaseJson.addProperty("p90Nanos", histogram.getPercentile(90));
+			phaseJson.addProperty("p99Nanos", histogram.getPercentile(99));
+			phaseJson.addProperty("maxNanos", histogram.getMax());
+			phasesJson.add(phase.getName(), phaseJson);
+		}
+		profileJson.add("phases", phasesJson);
+		return profileJson;
+	}
+
+	// Serialize packed chromosomes as one 0/1 entry per gene
+	private static JsonSerializer<BinaryString> binaryStringSerializer() {
+		return (binaryString, type, context) -> {
+			JsonObject individualJson = new JsonObject();
+			individualJson.add("chromosome", context.serialize(binaryString.toByteArray()));
+			individualJson.addProperty("fitness", binaryString.getFitness());
+			return individualJson;
+		};
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("MetricsCollector{\n");
 		sb.append("  bestIndividual=").append(getBestIndividual()).append(",\n");
 		sb.append("  executionTime=").append(getExecutionTime()).append(" ms,\n");
-		sb.append("  numberOfEvaluations=").append(numberOfEvaluations).append(",\n");
-		sb.append("  numberOfGenerations=").append(numberOfGenerations).append("\n");
+		sb.append("  numberOfEvaluations=").append(getNumberOfEvaluations()).append(",\n");
+		sb.append("  numberOfGenerations=").append(getNumberOfGenerations()).append("\n");
 		sb.append("  problem=").append(problem).append(",\n");
 		sb.append("  parameters=").append(parameters).append(",\n");
-		sb.append("  generationBestIndividuals=").append(generationBestIndividuals).append(",\n");
+		sb.append("  generationBestIndividuals=").append(traceWriter != null ? traceWriter.getFilePath() : convergenceTrace)
+				.append(",\n");
 		sb.append('}');
 		return sb.toString();
 	}
@@ -169,6 +543,39 @@ public class MetricsCollector {
 				(getBestIndividual() != null && getBestIndividual().getFitness() == problem.getOptimalValue())
 						? " (Optimum)"
 						: "",
-				getExecutionTime(), numberOfEvaluations, numberOfGenerations);
+				getExecutionTime(), getNumberOfEvaluations(), getNumberOfGenerations());
+		long hits = getCacheHits();
+		long misses = getCacheMisses();
+		if (hits + misses > 0) {
+			System.out.printf("Fitness Cache: %d hits, %d misses (%.1f%% hit rate)%n", hits, misses,
+					100.0 * hits / (hits + misses));
+		}
+		if (diversityTraced) {
+			System.out.printf("Diversity: %.4f mean Hamming distance, %.4f entropy, %d duplicates rejected%n",
+					diversity, entropy, getDuplicatesRejected());
+		}
+		if (phaseProfiler != null) {
+			System.out.printf("Profile: %.0f evaluations/s, %.1f MB/s allocated%n",
+					phaseProfiler.getEvaluationsPerSecond(), phaseProfiler.getAllocatedBytesPerSecond() / 1e6);
+			for (PhaseProfiler.Phase phase : PhaseProfiler.Phase.values()) {
+				LatencyHistogram histogram = phaseProfiler.getHistogram(phase);
+				if (histogram.getCount() > 0) {
+					System.out.printf("  %s: %d calls, total %.3f ms, mean %.0f ns, p99 %d ns, max %d ns%n",
+							phase.getName(), histogram.getCount(), histogram.getTotal() / 1e6, histogram.getMean(),
+							histogram.getPercentile(99), histogram.getMax());
+				}
+			}
+		}
+		for (int i = 0; i < islandMetrics.size(); i++) {
+			MetricsCollector island = islandMetrics.get(i);
+			System.out.printf("  Island %d: %s, Evaluations: %d, Generations: %d%n", i,
+					island.getBestIndividual().getFitness(), island.getNumberOfEvaluations(), island.getNumberOfGenerations());
+		}
+		for (int i = 0; i < portfolioMetrics.size(); i++) {
+			MetricsCollector member = portfolioMetrics.get(i);
+			System.out.printf("  Crossover %s, Mutation %s: %s, Evaluations: %d, Rounds: %d%n",
+					member.getParameters().get("crossoverProbability"), member.getParameters().get("mutationProbability"),
+					member.getBestIndividual().getFitness(), member.getNumberOfEvaluations(), portfolioRounds.get(i));
+		}
 	}
 }
@@ -0,0 +1,203 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * The MultidimensionalKnapsackProblemFile class gives random access to the
+ * instances of a file in the OR-Library MKP format (mknap1, mknapcb*, or
+ * generated files in the same layout).
+ * 
+ * The file is memory-mapped and read with a hand-written tokenizer that parses
+ * numbers straight into the primitive arrays of the compiled instance, without
+ * creating strings or boxed values. The offsets of the instances are indexed
+ * lazily: reading instance i only skips over the tokens of the instances
+ * before it, and they are not parsed.
+ * 
+ * Files must be smaller than 2 GB, the limit of a single mapped buffer.
+ */
+public class MultidimensionalKnapsackProblemFile {
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15 };
+
+	private final String filePath;
+	private final MappedByteBuffer buffer;
+	private final int numberProblems;
+
+	// Offsets of the instances indexed so far
+	private int[] offsets;
+	private int indexedProblems;
+
+	public MultidimensionalKnapsackProblemFile(String filePath) throws IOException {
+		this.filePath = filePath;
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File too large to be mapped: " + filePath);
+			}
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		this.numberProblems = nextInt();
+		this.offsets = new int[Math.max(1, numberProblems)];
+		this.offsets[0] = buffer.position();
+		this.indexedProblems = numberProblems > 0 ? 1 : 0;
+	}
+
+	public int getNumberProblems() {
+		return numberProblems;
+	}
+
+	// Parse a single instance
+	public synchronized MultidimensionalKnapsackProblem getInstance(int index) throws IOException {
+		if (index < 0 || index >= numberProblems) {
+			throw new IOException("Problem index " + index + " out of range, " + filePath + " has " + numberProblems
+					+ " problems");
+		}
+		while (indexedProblems <= index) {
+			buffer.position(offsets[indexedProblems - 1]);
+			int numberItems = nextInt();
+			int numberConstraints = nextInt();
+			skipTokens(1 + numberItems + (long) numberItems * numberConstraints + numberConstraints);
+			offsets[indexedProblems++] = buffer.position();
+		}
+
+		buffer.position(offsets[index]);
+		int numberItems = nextInt();
+		int numberConstraints = nextInt();
+		double optimalValue = nextDouble();
+
+		double[] profits = new double[numberItems];
+		for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+			profits[itemIndex] = nextDouble();
+		}
+
+		// The file is constraint-major, the compiled instance is item-major
+		int[] weights = new int[numberItems * numberConstraints];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+				weights[itemIndex * numberConstraints + constraintIndex] = nextInt();
+			}
+		}
+
+		int[] capacities = new int[numberConstraints];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			capacities[constraintIndex] = nextInt();
+		}
+
+		return new MultidimensionalKnapsackProblem(numberItems, numberConstraints, optimalValue, profits, weights,
+				capacities);
+	}
+
+	// Tokenizer
+	private void skipWhitespace() throws IOException {
+		while (buffer.hasRemaining()) {
+			byte b = buffer.get(buffer.position());
+			if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+				return;
+			}
+			buffer.position(buffer.position() + 1);
+		}
+		throw new IOException("Unexpected end of file in " + filePath);
+	}
+
+	private void skipTokens(long count) throws IOException {
+		for (long i = 0; i < count; i++) {
+			skipWhitespace();
+			while (buffer.hasRemaining() && buffer.get(buffer.position()) > ' ') {
+				buffer.position(buffer.position() + 1);
+			}
+		}
+	}
+
+	private int nextInt() throws IOException {
+		skipWhitespace();
+		boolean negative = false;
+		byte b = buffer.get();
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			b = buffer.hasRemaining() ? buffer.get() : 0;
+		}
+		long value = 0;
+		int digits = 0;
+		while (b >= '0' && b <= '9') {
+			value = value * 10 + (b - '0');
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw new IOException("Integer out of range in " + filePath);
+			}
+			digits++;
+			if (!buffer.hasRemaining()) {
+				b = 0;
+				break;
+			}
+			b = buffer.get();
+		}
+		if (digits == 0 || b > ' ') {
+			throw new IOException("Invalid integer at byte " + buffer.position() + " of " + filePath);
+		}
+		return (int) (negative ? -value : value);
+	}
+
+	/**
+	 * Parses a decimal number. Plain decimals with up to 15 significant digits
+	 * are computed as one exact integer divided by an exact power of ten, which
+	 * rounds exactly like Double.parseDouble. Anything else, such as exponents,
+	 * goes through Double.parseDouble.
+	 */
+	private double nextDouble() throws IOException {
+		skipWhitespace();
+		int start = buffer.position();
+		boolean negative = false;
+		byte b = buffer.get();
+		if (b == '-' || b == '+') {
+			negative = b == '-';
+			b = buffer.hasRemaining() ? buffer.get() : 0;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean fraction = false;
+		while (true) {
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if (fraction) {
+					fractionDigits++;
+				}
+			} else if (b == '.' && !fraction) {
+				fraction = true;
+			} else {
+				break;
+			}
+			if (!buffer.hasRemaining()) {
+				b = 0;
+				break;
+			}
+			b = buffer.get();
+		}
+		if (b <= ' ' && digits > 0 && digits <= 15) {
+			double value = mantissa / POWERS_OF_TEN[fractionDigits];
+			return negative ? -value : value;
+		}
+
+		// Slow path for exponents and long mantissas
+		buffer.position(start);
+		while (buffer.hasRemaining() && buffer.get(buffer.position()) > ' ') {
+			buffer.position(buffer.position() + 1);
+		}
+		byte[] token = new byte[buffer.position() - start];
+		for (int i = 0; i < token.length; i++) {
+			token[i] = buffer.get(start + i);
+		}
+		String text = new String(token, StandardCharsets.US_ASCII);
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid number '" + text + "' in " + filePath, e);
+		}
+	}
+}
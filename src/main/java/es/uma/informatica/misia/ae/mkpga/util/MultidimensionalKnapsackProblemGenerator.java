@@ -0,0 +1,51 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.util.Random;
+
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * The MultidimensionalKnapsackProblemGenerator class creates random instances
+ * of the Multidimensional Knapsack Problem following the procedure used for the
+ * OR-Library mknapcb files (Chu and Beasley, 1998):
+ * 
+ * - Weights are drawn uniformly from [0, 1000).
+ * - Capacities are a tightness ratio of the sum of the weights of each
+ * constraint.
+ * - Profits are correlated with the weights: the mean weight of the item plus
+ * a uniform value in [0, 500).
+ * 
+ * The optimal value of generated instances is unknown and set to zero.
+ */
+public class MultidimensionalKnapsackProblemGenerator {
+
+	private static final int MAX_WEIGHT = 1000;
+	private static final int MAX_PROFIT_NOISE = 500;
+
+	public static MultidimensionalKnapsackProblem generate(int numberItems, int numberConstraints, double tightness,
+			long seed) {
+		Random rnd = new Random(seed);
+		int[] itemWeights = new int[numberItems * numberConstraints];
+		long[] weightSums = new long[numberConstraints];
+		double[] itemProfits = new double[numberItems];
+
+		for (int itemIndex = 0; itemIndex < numberItems; itemIndex++) {
+			long itemWeightSum = 0;
+			for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+				int weight = rnd.nextInt(MAX_WEIGHT);
+				itemWeights[itemIndex * numberConstraints + constraintIndex] = weight;
+				weightSums[constraintIndex] += weight;
+				itemWeightSum += weight;
+			}
+			itemProfits[itemIndex] = itemWeightSum / numberConstraints + rnd.nextInt(MAX_PROFIT_NOISE);
+		}
+
+		int[] capacities = new int[numberConstraints];
+		for (int constraintIndex = 0; constraintIndex < numberConstraints; constraintIndex++) {
+			capacities[constraintIndex] = (int) Math.min(Integer.MAX_VALUE, (long) (tightness * weightSums[constraintIndex]));
+		}
+
+		return new MultidimensionalKnapsackProblem(numberItems, numberConstraints, 0.0, itemProfits, itemWeights,
+				capacities);
+	}
+}
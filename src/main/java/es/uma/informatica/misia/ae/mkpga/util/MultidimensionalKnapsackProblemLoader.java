@@ -1,7 +1,5 @@
 package es.uma.informatica.misia.ae.mkpga.util;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -18,87 +16,40 @@ import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem
  * The file format and source of the data can be found at:
  * http://people.brunel.ac.uk/~mastjjb/jeb/orlib/mknapinfo.html and
  * https://people.brunel.ac.uk/~mastjjb/jeb/orlib/files/mknap1.txt
+ * 
+ * Parsing is done by {@link MultidimensionalKnapsackProblemFile}. Binary
+ * snapshots written by {@link MultidimensionalKnapsackProblemSnapshot} are
+ * detected by their magic number and loaded without parsing.
  */
 public class MultidimensionalKnapsackProblemLoader {
 
 	public static List<MultidimensionalKnapsackProblem> loadInstances(String filePath) throws IOException {
-		List<MultidimensionalKnapsackProblem> instances = new ArrayList<>();
-
-		try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-			String line;
-
-			// Skip blank lines
-			do {
-				line = reader.readLine();
-			} while (line != null && line.trim().isEmpty());
-
-			// Number of test problems
-			int numProblems = Integer.parseInt(line.trim());
-
-			for (int i = 0; i < numProblems; i++) {
-				// Skip blank lines
-				do {
-					line = reader.readLine();
-				} while (line != null && line.trim().isEmpty());
-
-				String[] header = line.trim().split(" ");
-
-				// Number of items, number of constraints, and optimal value
-				int numberItems = Integer.parseInt(header[0]);
-				int numberConstraints = Integer.parseInt(header[1]);
-				double optimalValue = Double.parseDouble(header[2]);
-
-				// Read profits
-				List<Double> profits = new ArrayList<>();
-				// Read lines until all profits are read
-				while (profits.size() < numberItems) {
-					line = reader.readLine().trim();
-					String[] profitValues = line.split(" ");
-					for (String profit : profitValues) {
-						if (!profit.isEmpty()) {
-							profits.add(Double.parseDouble(profit));
-						}
-					}
-				}
-
-				// Read each constraint's item requirements
-				List<List<Integer>> constraints = new ArrayList<>();
-				// Read lines until all constraints
-				for (int j = 0; j < numberConstraints; j++) {
-					List<Integer> constraint = new ArrayList<>();
-					// Read lines until all items in the constraint are read
-					while (constraint.size() < numberItems) {
-						line = reader.readLine().trim();
-						String[] constraintValues = line.split(" ");
-						for (String value : constraintValues) {
-							if (!value.isEmpty()) {
-								constraint.add(Integer.parseInt(value));
-							}
-						}
-					}
-					constraints.add(constraint);
-				}
-
-				// Read resource capacities
-				List<Integer> capacities = new ArrayList<>();
-				// Read lines until all capacities are read
-				while (capacities.size() < numberConstraints) {
-					line = reader.readLine().trim();
-					String[] capacityValues = line.split(" ");
-					for (String capacity : capacityValues) {
-						if (!capacity.isEmpty()) {
-							capacities.add(Integer.parseInt(capacity));
-						}
-					}
-				}
-
-				// Create instance of MultidimensionalKnapsackProblem with all data
-				MultidimensionalKnapsackProblem instance = new MultidimensionalKnapsackProblem(
-						numberItems, numberConstraints, optimalValue, profits, constraints, capacities);
-
-				instances.add(instance);
+		if (MultidimensionalKnapsackProblemSnapshot.isSnapshot(filePath)) {
+			MultidimensionalKnapsackProblemSnapshot snapshot = new MultidimensionalKnapsackProblemSnapshot(filePath);
+			List<MultidimensionalKnapsackProblem> instances = new ArrayList<>();
+			for (int i = 0; i < snapshot.getNumberProblems(); i++) {
+				instances.add(snapshot.getInstance(i));
 			}
+			return instances;
+		}
+		MultidimensionalKnapsackProblemFile file = new MultidimensionalKnapsackProblemFile(filePath);
+		List<MultidimensionalKnapsackProblem> instances = new ArrayList<>();
+		for (int i = 0; i < file.getNumberProblems(); i++) {
+			instances.add(file.getInstance(i));
 		}
 		return instances;
 	}
+
+	// Load only the instance at the given index, the previous ones are skipped without parsing
+	public static MultidimensionalKnapsackProblem loadInstance(String filePath, int index) throws IOException {
+		if (MultidimensionalKnapsackProblemSnapshot.isSnapshot(filePath)) {
+			return new MultidimensionalKnapsackProblemSnapshot(filePath).getInstance(index);
+		}
+		return new MultidimensionalKnapsackProblemFile(filePath).getInstance(index);
+	}
+
+	// Convert an OR-Library text file into a binary snapshot
+	public static void convertToSnapshot(String textFilePath, String snapshotFilePath) throws IOException {
+		MultidimensionalKnapsackProblemSnapshot.write(loadInstances(textFilePath), snapshotFilePath);
+	}
 }
@@ -0,0 +1,201 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import es.uma.informatica.misia.ae.mkpga.problem.MultidimensionalKnapsackProblem;
+
+/**
+ * The MultidimensionalKnapsackProblemSnapshot class reads and writes compiled
+ * MKP instances in a compact binary format, so that large instances can be
+ * loaded without parsing text.
+ * 
+ * All values are little-endian. The file starts with a header:
+ * 
+ * - magic: the bytes "MKPB".
+ * - version: int, currently 1.
+ * - number of problems: int.
+ * - offsets: one long per problem with the position of its record.
+ * 
+ * Each record starts at a multiple of 8 bytes and contains:
+ * 
+ * - number of items n and number of constraints m: two ints.
+ * - optimal value: double.
+ * - profits: n doubles.
+ * - weights: n * m ints, item-major (all the weights of item 0 first).
+ * - capacities: m ints.
+ * 
+ * Reading maps the file and bulk-copies each array out of the mapped buffer,
+ * which runs at memory copy speed. The offsets and sizes are checked against
+ * the length of the file first, so a truncated or corrupt snapshot fails with
+ * an IOException.
+ */
+public class MultidimensionalKnapsackProblemSnapshot {
+	public static final int MAGIC = 0x42504B4D; // "MKPB" read as a little-endian int
+	public static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 12;
+	private static final int ALIGNMENT = 8;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final String filePath;
+	private final ByteBuffer buffer;
+	private final int numberProblems;
+
+	public MultidimensionalKnapsackProblemSnapshot(String filePath) throws IOException {
+		this.filePath = filePath;
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("File too large to be mapped: " + filePath);
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			this.buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not an MKP snapshot: " + filePath);
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported MKP snapshot version " + buffer.getInt(4) + ": " + filePath);
+		}
+		this.numberProblems = buffer.getInt(8);
+		if (numberProblems < 0 || HEADER_SIZE + (long) numberProblems * Long.BYTES > buffer.limit()) {
+			throw new IOException("Truncated MKP snapshot, the header of " + numberProblems
+					+ " problems does not fit: " + filePath);
+		}
+	}
+
+	// Check the magic number without mapping the whole file
+	public static boolean isSnapshot(String filePath) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			while (magic.hasRemaining() && channel.read(magic) >= 0) {
+				// A read may return fewer bytes than requested, keep reading until the end of the file
+			}
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		}
+	}
+
+	public int getNumberProblems() {
+		return numberProblems;
+	}
+
+	public MultidimensionalKnapsackProblem getInstance(int index) throws IOException {
+		if (index < 0 || index >= numberProblems) {
+			throw new IOException("Problem index " + index + " out of range, " + filePath + " has " + numberProblems
+					+ " problems");
+		}
+		long recordOffset = buffer.getLong(HEADER_SIZE + index * Long.BYTES);
+		if (recordOffset < HEADER_SIZE || recordOffset + 16 > buffer.limit()) {
+			throw new IOException("Truncated MKP snapshot, problem " + index + " starts at " + recordOffset
+					+ " of " + buffer.limit() + " bytes: " + filePath);
+		}
+		int offset = (int) recordOffset;
+		int numberItems = buffer.getInt(offset);
+		int numberConstraints = buffer.getInt(offset + 4);
+		double optimalValue = buffer.getDouble(offset + 8);
+		if (numberItems < 0 || numberConstraints < 0) {
+			throw new IOException("Corrupt MKP snapshot, problem " + index + " has " + numberItems + " items and "
+					+ numberConstraints + " constraints: " + filePath);
+		}
+		long recordSize = recordSize(numberItems, numberConstraints);
+		if (offset + recordSize > buffer.limit()) {
+			throw new IOException("Truncated MKP snapshot, problem " + index + " needs " + recordSize + " bytes at "
+					+ offset + " of " + buffer.limit() + ": " + filePath);
+		}
+
+		ByteBuffer record = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		record.position(offset + 16);
+		double[] profits = new double[numberItems];
+		record.asDoubleBuffer().get(profits);
+		record.position(record.position() + numberItems * Double.BYTES);
+		int[] weights = new int[numberItems * numberConstraints];
+		record.asIntBuffer().get(weights);
+		record.position(record.position() + weights.length * Integer.BYTES);
+		int[] capacities = new int[numberConstraints];
+		record.asIntBuffer().get(capacities);
+
+		return new MultidimensionalKnapsackProblem(numberItems, numberConstraints, optimalValue, profits, weights,
+				capacities);
+	}
+
+	public static void write(List<MultidimensionalKnapsackProblem> problems, String filePath) throws IOException {
+		long[] offsets = new long[problems.size()];
+		long position = align(HEADER_SIZE + (long) problems.size() * Long.BYTES);
+		for (int i = 0; i < problems.size(); i++) {
+			offsets[i] = position;
+			position = align(position + recordSize(problems.get(i)));
+		}
+
+		Path path = Paths.get(filePath);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			out.putInt(MAGIC).putInt(VERSION).putInt(problems.size());
+			for (long offset : offsets) {
+				ensureRemaining(channel, out, Long.BYTES);
+				out.putLong(offset);
+			}
+			for (int i = 0; i < problems.size(); i++) {
+				pad(channel, out, offsets[i]);
+				MultidimensionalKnapsackProblem problem = problems.get(i);
+				ensureRemaining(channel, out, 16);
+				out.putInt(problem.getNumberItems()).putInt(problem.getNumberConstraints())
+						.putDouble(problem.getOptimalValue());
+				for (double profit : problem.getItemProfits()) {
+					ensureRemaining(channel, out, Double.BYTES);
+					out.putDouble(profit);
+				}
+				for (int weight : problem.getItemWeights()) {
+					ensureRemaining(channel, out, Integer.BYTES);
+					out.putInt(weight);
+				}
+				for (int capacity : problem.getConstraintCapacities()) {
+					ensureRemaining(channel, out, Integer.BYTES);
+					out.putInt(capacity);
+				}
+			}
+			out.flip();
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+
+	private static long recordSize(MultidimensionalKnapsackProblem problem) {
+		return recordSize(problem.getNumberItems(), problem.getNumberConstraints());
+	}
+
+	private static long recordSize(int numberItems, int numberConstraints) {
+		return 16 + (long) numberItems * Double.BYTES + (long) numberItems * numberConstraints * Integer.BYTES
+				+ (long) numberConstraints * Integer.BYTES;
+	}
+
+	private static long align(long position) {
+		return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	// Write zeros until the file position reaches offset
+	private static void pad(FileChannel channel, ByteBuffer out, long offset) throws IOException {
+		while (channel.position() + out.position() < offset) {
+			ensureRemaining(channel, out, 1);
+			out.put((byte) 0);
+		}
+	}
+
+	private static void ensureRemaining(FileChannel channel, ByteBuffer out, int bytes) throws IOException {
+		if (out.remaining() < bytes) {
+			out.flip();
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+			out.clear();
+		}
+	}
+}
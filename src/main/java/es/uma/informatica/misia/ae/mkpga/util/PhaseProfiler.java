@@ -0,0 +1,216 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in instrumentation of the phases of a run. The time spent in each phase
+ * is recorded with {@link System#nanoTime()} into a {@link LatencyHistogram},
+ * and the evaluation rate and the bytes allocated by the threads of the run
+ * are tracked. While the run is in progress the profiler is registered as an
+ * MBean.
+ * 
+ * Phases are timed by chaining timestamps, each call returning the start of
+ * the next phase:
+ * 
+ * long time = profiler.start(); ... time = profiler.record(Phase.SELECTION, time);
+ * 
+ * The disabled profiler does not read the clock, so it only costs a branch.
+ */
+public class PhaseProfiler implements PhaseProfilerMXBean {
+	public static final String PROFILE_PARAM = "profile";
+	public static final String OBJECT_NAME = "es.uma.informatica.misia.ae.mkpga:type=PhaseProfiler,name=run";
+
+	public static final PhaseProfiler DISABLED = new PhaseProfiler(false);
+
+	public enum Phase {
+		SELECTION, CROSSOVER, MUTATION, REPAIR, EVALUATION, REPLACEMENT, METRICS;
+
+		public String getName() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private static final AtomicInteger RUNS = new AtomicInteger();
+
+	private final boolean enabled;
+	private final LatencyHistogram[] histograms;
+	private final LongAdder allocatedBytes = new LongAdder();
+	private LongSupplier evaluations = () -> 0;
+	private volatile long startNanoTime;
+	private volatile long stopNanoTime;
+	private volatile long runThreadId = -1;
+	private volatile long runThreadStartBytes;
+	private ObjectName objectName;
+
+	private PhaseProfiler(boolean enabled) {
+		this.enabled = enabled;
+		this.histograms = new LatencyHistogram[enabled ? Phase.values().length : 0];
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	// A new profiler when profile=1, the disabled one otherwise
+	public static PhaseProfiler create(Map<String, Double> parameters) {
+		return parameters.getOrDefault(PROFILE_PARAM, 0.0) != 0.0 ? new PhaseProfiler(true) : DISABLED;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	// Records the time since start in the phase and returns the current time
+	public long record(Phase phase, long start) {
+		if (!enabled) {
+			return 0;
+		}
+		long now = System.nanoTime();
+		histograms[phase.ordinal()].record(now - start);
+		return now;
+	}
+
+	/**
+	 * Starts the clock of the run on the current thread and registers the MBean.
+	 * The evaluations are read from the given counter.
+	 */
+	public void startRun(LongSupplier evaluations) {
+		if (!enabled) {
+			return;
+		}
+		this.evaluations = evaluations;
+		runThreadStartBytes = threadAllocatedBytes(Thread.currentThread().getId());
+		runThreadId = Thread.currentThread().getId();
+		startNanoTime = System.nanoTime();
+		try {
+			objectName = new ObjectName(OBJECT_NAME + RUNS.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		} catch (JMException e) {
+			objectName = null;
+			System.err.println("Error registering the phase profiler: " + e.getMessage());
+		}
+	}
+
+	public void stopRun() {
+		if (!enabled) {
+			return;
+		}
+		stopNanoTime = System.nanoTime();
+		allocatedBytes.add(threadAllocatedBytes(runThreadId) - runThreadStartBytes);
+		runThreadId = -1;
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				System.err.println("Error unregistering the phase profiler: " + e.getMessage());
+			}
+			objectName = null;
+		}
+	}
+
+	// Allocation counter of a worker thread, to be passed to threadFinished
+	public long threadStarted() {
+		return enabled ? threadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	public void threadFinished(long startBytes) {
+		if (enabled) {
+			allocatedBytes.add(threadAllocatedBytes(Thread.currentThread().getId()) - startBytes);
+		}
+	}
+
+	public LatencyHistogram getHistogram(Phase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	// Seconds since the start of the run, up to its end once stopped
+	public double getElapsedSeconds() {
+		long end = stopNanoTime != 0 ? stopNanoTime : System.nanoTime();
+		return (end - startNanoTime) / 1e9;
+	}
+
+	@Override
+	public long getEvaluations() {
+		return evaluations.getAsLong();
+	}
+
+	@Override
+	public double getEvaluationsPerSecond() {
+		double elapsed = getElapsedSeconds();
+		return elapsed > 0 ? getEvaluations() / elapsed : 0;
+	}
+
+	// Bytes allocated by the threads of the run, including the run thread while it is in progress
+	@Override
+	public long getAllocatedBytes() {
+		long bytes = allocatedBytes.sum();
+		long threadId = runThreadId;
+		if (threadId >= 0) {
+			bytes += threadAllocatedBytes(threadId) - runThreadStartBytes;
+		}
+		return bytes;
+	}
+
+	@Override
+	public double getAllocatedBytesPerSecond() {
+		double elapsed = getElapsedSeconds();
+		return elapsed > 0 ? getAllocatedBytes() / elapsed : 0;
+	}
+
+	@Override
+	public Map<String, Long> getPhaseCounts() {
+		return phaseValues(LatencyHistogram::getCount);
+	}
+
+	@Override
+	public Map<String, Double> getPhaseMeanNanos() {
+		Map<String, Double> means = new LinkedHashMap<>();
+		for (int i = 0; i < histograms.length; i++) {
+			means.put(Phase.values()[i].getName(), histograms[i].getMean());
+		}
+		return means;
+	}
+
+	@Override
+	public Map<String, Long> getPhaseP99Nanos() {
+		return phaseValues(histogram -> histogram.getPercentile(99));
+	}
+
+	@Override
+	public Map<String, Long> getPhaseMaxNanos() {
+		return phaseValues(LatencyHistogram::getMax);
+	}
+
+	private Map<String, Long> phaseValues(ToLongFunction<LatencyHistogram> value) {
+		Map<String, Long> values = new LinkedHashMap<>();
+		for (int i = 0; i < histograms.length; i++) {
+			values.put(Phase.values()[i].getName(), value.applyAsLong(histograms[i]));
+		}
+		return values;
+	}
+
+	// Allocated bytes of a thread, 0 when the JVM does not track them
+	private static long threadAllocatedBytes(long threadId) {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+			if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+				return Math.max(0, allocations.getThreadAllocatedBytes(threadId));
+			}
+		}
+		return 0;
+	}
+}
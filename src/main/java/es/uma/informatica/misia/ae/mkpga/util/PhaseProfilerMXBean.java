@@ -0,0 +1,25 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link PhaseProfiler}, registered while its run is in
+ * progress. Phase maps are keyed by the lower case phase name.
+ */
+public interface PhaseProfilerMXBean {
+	long getEvaluations();
+
+	double getEvaluationsPerSecond();
+
+	long getAllocatedBytes();
+
+	double getAllocatedBytesPerSecond();
+
+	Map<String, Long> getPhaseCounts();
+
+	Map<String, Double> getPhaseMeanNanos();
+
+	Map<String, Long> getPhaseP99Nanos();
+
+	Map<String, Long> getPhaseMaxNanos();
+}
@@ -0,0 +1,38 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+/**
+ * Base of the generators with 64-bit output: every method is derived from
+ * nextLong, using its high bits.
+ */
+abstract class Random64 extends RestorableRandom {
+	private static final long serialVersionUID = 1L;
+
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	protected Random64(long seed) {
+		super(seed);
+	}
+
+	@Override
+	public abstract long nextLong();
+
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	@Override
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+}
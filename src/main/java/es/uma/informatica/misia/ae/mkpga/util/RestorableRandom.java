@@ -0,0 +1,68 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@link Random} whose state can be saved and restored, and split into
+ * independent streams for worker threads. The generator of a run is chosen
+ * with the rng parameter:
+ * 
+ * - 0: {@link LinearCongruentialRandom}, the sequence of java.util.Random
+ * (default, keeps the results of existing seeds).
+ * - 1: {@link SplitMix64Random}, the sequence of SplittableRandom.
+ * - 2: {@link Xoroshiro128PlusPlusRandom}.
+ * 
+ * Unlike java.util.Random, none of them is thread-safe, each thread must use
+ * its own stream.
+ */
+public abstract class RestorableRandom extends Random {
+	public static final String RNG_PARAM = "rng";
+	public static final int LINEAR_CONGRUENTIAL = 0;
+	public static final int SPLIT_MIX_64 = 1;
+	public static final int XOROSHIRO_128_PLUS_PLUS = 2;
+
+	private static final long serialVersionUID = 1L;
+
+	protected RestorableRandom(long seed) {
+		super(seed);
+	}
+
+	public static RestorableRandom create(Map<String, Double> parameters, long seed) {
+		int generator = parameters.getOrDefault(RNG_PARAM, (double) LINEAR_CONGRUENTIAL).intValue();
+		switch (generator) {
+		case LINEAR_CONGRUENTIAL:
+			return new LinearCongruentialRandom(seed);
+		case SPLIT_MIX_64:
+			return new SplitMix64Random(seed);
+		case XOROSHIRO_128_PLUS_PLUS:
+			return new Xoroshiro128PlusPlusRandom(seed);
+		default:
+			throw new IllegalArgumentException("Unknown random generator " + generator);
+		}
+	}
+
+	// New generator for another thread, the same sequence of calls always gives the same streams
+	public abstract RestorableRandom split();
+
+	/**
+	 * Sets the first n bits of words to random values and clears the rest of
+	 * the last word, a word at a time.
+	 */
+	public void nextBits(long[] words, int n) {
+		int fullWords = n >>> 6;
+		for (int i = 0; i < fullWords; i++) {
+			words[i] = nextLong();
+		}
+		if ((n & 63) != 0) {
+			words[fullWords] = nextLong() & ((1L << n) - 1);
+		}
+	}
+
+	public abstract void writeState(DataOutput out) throws IOException;
+
+	public abstract void readState(DataInput in) throws IOException;
+}
@@ -0,0 +1,28 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+/**
+ * JMX view of a run in progress, see {@link LiveMetrics}. All values are read
+ * from lock-free snapshots published by the run.
+ */
+public interface RunMetricsMXBean {
+	String getLabels();
+
+	double getBestFitness();
+
+	double getOptimalValue();
+
+	// Relative gap between the best fitness and the optimal value, NaN if the optimum is unknown
+	double getGap();
+
+	long getEvaluations();
+
+	long getGenerations();
+
+	double getEvaluationsPerSecond();
+
+	double getDiversity();
+
+	double getEntropy();
+
+	double getElapsedSeconds();
+}
@@ -0,0 +1,75 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The SplitMix64 generator of java.util.SplittableRandom, as a
+ * {@link RestorableRandom}: nextLong and split return the same values as a
+ * SplittableRandom created with the same seed.
+ */
+public class SplitMix64Random extends Random64 {
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long seed;
+	private long gamma;
+
+	public SplitMix64Random(long seed) {
+		super(seed);
+	}
+
+	private SplitMix64Random(long seed, long gamma) {
+		super(seed);
+		this.gamma = gamma;
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		super.setSeed(seed);
+		this.seed = seed;
+		this.gamma = GOLDEN_GAMMA;
+	}
+
+	@Override
+	public long nextLong() {
+		seed += gamma;
+		return mix64(seed);
+	}
+
+	@Override
+	public RestorableRandom split() {
+		long splitSeed = nextLong();
+		seed += gamma;
+		return new SplitMix64Random(splitSeed, mixGamma(seed));
+	}
+
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	// Odd gamma with enough bit transitions, as in SplittableRandom
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int transitions = Long.bitCount(z ^ (z >>> 1));
+		return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(seed);
+		out.writeLong(gamma);
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		seed = in.readLong();
+		gamma = in.readLong();
+	}
+}
@@ -0,0 +1,27 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+/**
+ * Destination of the run-length compressed convergence trace built by
+ * {@link MetricsCollector}. Each record holds the generation, the best fitness
+ * so far, the number of evaluations and the nanoseconds since the start of the
+ * run. The collector either appends a record or moves the last one forward
+ * while the best fitness does not change.
+ *
+ * When the population diversity is traced, the records also hold its mean
+ * Hamming distance and entropy, which sinks without those columns ignore.
+ */
+public interface TraceSink {
+	void append(int generationNumber, double fitness, long evaluations, long nanoTime);
+
+	// Move the last record to a later generation with the same fitness
+	void updateLast(int generationNumber, long evaluations, long nanoTime);
+
+	default void append(int generationNumber, double fitness, long evaluations, long nanoTime, double diversity,
+			double entropy) {
+		append(generationNumber, fitness, evaluations, nanoTime);
+	}
+
+	default void updateLast(int generationNumber, long evaluations, long nanoTime, double diversity, double entropy) {
+		updateLast(generationNumber, evaluations, nanoTime);
+	}
+}
@@ -0,0 +1,193 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the trace to a CSV file with the columns generation, fitness,
+ * evaluations and nanoTime, through a reused buffer and a FileChannel, so the
+ * memory used does not grow with the length of the run.
+ * 
+ * The last record is kept pending until the next one is appended or the
+ * writer is closed, because the run-length compression may still move it
+ * forward. When the first record has a population diversity, the file has
+ * the diversity and entropy columns too.
+ * 
+ * An existing file is only truncated by the first write, so a run resumed
+ * from a checkpoint can instead cut it back to the length saved by writeState
+ * and append the records that follow.
+ */
+public class TraceWriter implements TraceSink, Closeable {
+	public static final String HEADER = "generation,fitness,evaluations,nanoTime\n";
+	public static final String DIVERSITY_HEADER = "generation,fitness,evaluations,nanoTime,diversity,entropy\n";
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int MAX_RECORD_SIZE = 192;
+
+	private final String filePath;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final StringBuilder record = new StringBuilder(MAX_RECORD_SIZE);
+
+	private boolean pending;
+	private int pendingGenerationNumber;
+	private double pendingFitness;
+	private long pendingEvaluations;
+	private long pendingNanoTime;
+	private double pendingDiversity;
+	private double pendingEntropy;
+	// Chosen with the first record
+	private boolean headerWritten;
+	private boolean diversityColumns;
+	// Whether the previous contents of the file were truncated or restored
+	private boolean started;
+
+	public TraceWriter(String filePath) throws IOException {
+		this.filePath = filePath;
+		this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	@Override
+	public void append(int generationNumber, double fitness, long evaluations, long nanoTime) {
+		append(generationNumber, fitness, evaluations, nanoTime, Double.NaN, Double.NaN);
+	}
+
+	@Override
+	public void updateLast(int generationNumber, long evaluations, long nanoTime) {
+		updateLast(generationNumber, evaluations, nanoTime, Double.NaN, Double.NaN);
+	}
+
+	@Override
+	public void append(int generationNumber, double fitness, long evaluations, long nanoTime, double diversity,
+			double entropy) {
+		if (!headerWritten) {
+			diversityColumns = !Double.isNaN(diversity) || !Double.isNaN(entropy);
+			writeHeader();
+		}
+		if (pending) {
+			writePending();
+		}
+		pending = true;
+		pendingGenerationNumber = generationNumber;
+		pendingFitness = fitness;
+		pendingEvaluations = evaluations;
+		pendingNanoTime = nanoTime;
+		pendingDiversity = diversity;
+		pendingEntropy = entropy;
+	}
+
+	@Override
+	public void updateLast(int generationNumber, long evaluations, long nanoTime, double diversity, double entropy) {
+		pendingGenerationNumber = generationNumber;
+		pendingEvaluations = evaluations;
+		pendingNanoTime = nanoTime;
+		pendingDiversity = diversity;
+		pendingEntropy = entropy;
+	}
+
+	private void writeHeader() {
+		put(diversityColumns ? DIVERSITY_HEADER : HEADER);
+		headerWritten = true;
+	}
+
+	private void writePending() {
+		record.setLength(0);
+		record.append(pendingGenerationNumber).append(',').append(pendingFitness).append(',')
+				.append(pendingEvaluations).append(',').append(pendingNanoTime);
+		if (diversityColumns) {
+			record.append(',').append(pendingDiversity).append(',').append(pendingEntropy);
+		}
+		put(record.append('\n'));
+	}
+
+	// Records are ASCII, so chars are written as bytes without an encoder
+	private void put(CharSequence text) {
+		if (buffer.remaining() < text.length()) {
+			flush();
+		}
+		for (int i = 0; i < text.length(); i++) {
+			buffer.put((byte) text.charAt(i));
+		}
+	}
+
+	private void flush() {
+		buffer.flip();
+		try {
+			if (!started) {
+				channel.truncate(0);
+				started = true;
+			}
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error writing trace to " + filePath, e);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Flushes the completed records and writes the length of the file and the
+	 * pending record for a checkpoint.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		flush();
+		out.writeLong(channel.position());
+		out.writeBoolean(headerWritten);
+		out.writeBoolean(diversityColumns);
+		out.writeBoolean(pending);
+		out.writeInt(pendingGenerationNumber);
+		out.writeDouble(pendingFitness);
+		out.writeLong(pendingEvaluations);
+		out.writeLong(pendingNanoTime);
+		out.writeDouble(pendingDiversity);
+		out.writeDouble(pendingEntropy);
+	}
+
+	/**
+	 * Restores the state written by writeState before anything is appended,
+	 * truncating the file to the records it had at the checkpoint.
+	 */
+	public void readState(DataInput in) throws IOException {
+		long length = in.readLong();
+		if (channel.size() < length) {
+			throw new IOException("Trace file " + filePath + " is shorter than the checkpoint");
+		}
+		channel.truncate(length);
+		channel.position(length);
+		started = true;
+		headerWritten = in.readBoolean();
+		diversityColumns = in.readBoolean();
+		pending = in.readBoolean();
+		pendingGenerationNumber = in.readInt();
+		pendingFitness = in.readDouble();
+		pendingEvaluations = in.readLong();
+		pendingNanoTime = in.readLong();
+		pendingDiversity = in.readDouble();
+		pendingEntropy = in.readDouble();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!headerWritten) {
+			writeHeader();
+		}
+		if (pending) {
+			writePending();
+			pending = false;
+		}
+		flush();
+		channel.close();
+	}
+}
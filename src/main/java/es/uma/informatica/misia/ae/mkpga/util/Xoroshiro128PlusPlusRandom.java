@@ -0,0 +1,92 @@
+package es.uma.informatica.misia.ae.mkpga.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The xoroshiro128++ generator of Blackman and Vigna, seeded like the
+ * Xoroshiro128PlusPlus generator of java.util.random, which returns the same
+ * sequence for the same seed. Splitting hands the current state to the new
+ * generator and jumps this one 2^64 values ahead, so the streams never
+ * overlap.
+ */
+public class Xoroshiro128PlusPlusRandom extends Random64 {
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_RATIO = 0x9e3779b97f4a7c15L;
+	private static final long SILVER_RATIO = 0x6a09e667f3bcc909L;
+	private static final long[] JUMP = { 0x2bd7a6a6e99c2ddcL, 0x0992ccaf6a6fca05L };
+
+	private long s0;
+	private long s1;
+
+	public Xoroshiro128PlusPlusRandom(long seed) {
+		super(seed);
+	}
+
+	private Xoroshiro128PlusPlusRandom(long s0, long s1) {
+		super(0);
+		this.s0 = s0;
+		this.s1 = s1;
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		super.setSeed(seed);
+		seed ^= SILVER_RATIO;
+		s0 = SplitMix64Random.mix64(seed);
+		s1 = SplitMix64Random.mix64(seed + GOLDEN_RATIO);
+		// The all-zero state is not allowed
+		if ((s0 | s1) == 0) {
+			s0 = GOLDEN_RATIO;
+			s1 = SILVER_RATIO;
+		}
+	}
+
+	@Override
+	public long nextLong() {
+		long x0 = s0;
+		long x1 = s1;
+		long result = Long.rotateLeft(x0 + x1, 17) + x0;
+		x1 ^= x0;
+		s0 = Long.rotateLeft(x0, 49) ^ x1 ^ (x1 << 21);
+		s1 = Long.rotateLeft(x1, 28);
+		return result;
+	}
+
+	@Override
+	public RestorableRandom split() {
+		Xoroshiro128PlusPlusRandom stream = new Xoroshiro128PlusPlusRandom(s0, s1);
+		jump();
+		return stream;
+	}
+
+	private void jump() {
+		long t0 = 0;
+		long t1 = 0;
+		for (long jump : JUMP) {
+			for (int bit = 0; bit < 64; bit++) {
+				if ((jump & (1L << bit)) != 0) {
+					t0 ^= s0;
+					t1 ^= s1;
+				}
+				nextLong();
+			}
+		}
+		s0 = t0;
+		s1 = t1;
+	}
+
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(s0);
+		out.writeLong(s1);
+	}
+
+	@Override
+	public void readState(DataInput in) throws IOException {
+		s0 = in.readLong();
+		s1 = in.readLong();
+	}
+}